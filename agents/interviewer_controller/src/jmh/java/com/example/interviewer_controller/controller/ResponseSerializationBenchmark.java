@@ -0,0 +1,47 @@
+package com.example.interviewer_controller.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞面试接口的响应组装与 JSON 序列化：audio=base64 时整段音频 Base64 内联进 JSON，
+ * 体积放大 4/3 且要整体拷贝数次。audioKb 覆盖一句话到一段长回复的 TTS 音频大小。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="ResponseSerializationBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"16", "256", "1024"})
+    public int audioKb;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private InterviewController controller;
+    private byte[] audio;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // base64 模式只用到 putAudio，不需要任何 Service
+        controller = new InterviewController(null, null, null, null, null, null);
+        audio = new byte[audioKb * 1024];
+        new SplittableRandom(1).nextBytes(audio);
+    }
+
+    @Benchmark
+    public byte[] base64Response() throws Exception {
+        Map<String, Object> result = new HashMap<>();
+        result.put("userText", "我觉得 Redis 的持久化主要有 RDB 和 AOF 两种方式");
+        result.put("aiText", "回答得不错。那我们接着聊聊，AOF 重写的时候 Redis 是怎么保证数据不丢的？");
+        controller.putAudio(result, audio, "base64");
+        return mapper.writeValueAsBytes(result);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.interviewer_controller.service;
+
+import com.example.interviewer_controller.model.KnowledgeGraph;
+import com.example.interviewer_controller.model.Triplet;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准用的图谱输入：
+ *   real    —— 项目里的 knowledge_graph.json（路径同 kg.json.path，可用 -Dkg.json.path 覆盖）
+ *   数字    —— 按该三元组数合成的图谱，实体度数近似幂律分布（少数热门实体连着大量边），固定种子可复现
+ */
+final class BenchmarkGraphs {
+
+    static final String REAL = "real";
+
+    private static final String[] RELATIONS = {"包含", "实现方式", "依赖", "属于", "对比", "应用于", "原理", "功能"};
+    private static final String[] PREFIXES = {"分布式", "并发", "缓存", "索引", "事务", "网络", "内存", "调度", "日志", "一致性"};
+
+    private BenchmarkGraphs() {
+    }
+
+    static KnowledgeGraph load(String graph) throws IOException {
+        return KnowledgeGraph.build(triplets(graph));
+    }
+
+    static List<Triplet> triplets(String graph) throws IOException {
+        if (REAL.equals(graph)) {
+            Path json = Paths.get(System.getProperty("kg.json.path", "../../data_engineering/kg_data/knowledge_graph.json"));
+            return new ObjectMapper().readValue(json.toFile(), new TypeReference<List<Triplet>>() {});
+        }
+        return synthetic(Integer.parseInt(graph), 42);
+    }
+
+    /**
+     * 合成 count 条三元组：实体数约为三元组数的 1/5，每 20 条三元组归属一个话题
+     */
+    static List<Triplet> synthetic(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int entities = Math.max(10, count / 5);
+        List<Triplet> triplets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Triplet t = new Triplet();
+            t.setHead(entity(skewed(random, entities)));
+            t.setTail(entity(random.nextInt(entities)));
+            t.setRelation(RELATIONS[random.nextInt(RELATIONS.length)]);
+            t.setSource_topic("题目：合成话题" + (i / 20));
+            triplets.add(t);
+        }
+        return triplets;
+    }
+
+    /**
+     * 查询用的实体名：热门、中等、冷门各取若干，外加一个图谱里不存在的词
+     */
+    static List<String> queries(KnowledgeGraph graph) {
+        List<String> all = graph.entities();
+        List<String> queries = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 8; i++) queries.add(all.get(skewed(random, all.size())));
+        for (int i = 0; i < 8; i++) queries.add(all.get(random.nextInt(all.size())));
+        queries.add("不存在的实体");
+        return queries;
+    }
+
+    // 编号后接固定后缀，避免“实体1”作为子串命中“实体10”“实体100”而放大匹配数
+    static String entity(int id) {
+        return PREFIXES[id % PREFIXES.length] + id + "号组件";
+    }
+
+    // 取平方把分布压向小编号，近似“少数实体度数很高”的真实图谱
+    private static int skewed(SplittableRandom random, int bound) {
+        double u = random.nextDouble();
+        return (int) (u * u * bound);
+    }
+}
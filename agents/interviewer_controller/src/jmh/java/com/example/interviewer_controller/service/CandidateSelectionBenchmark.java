@@ -0,0 +1,112 @@
+package com.example.interviewer_controller.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜题后的挑题循环（searchVectorDBUnique = 检索 + pickUnused）与 extractQuestionOnly。
+ * 向量库换成直接返回固定候选的桩，只测判重挑题本身；used 控制前多少条候选已被本会话问过，
+ * 模拟面试后半程大部分候选都要跳过的情况。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="CandidateSelectionBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandidateSelectionBenchmark {
+
+    /**
+     * 参数只作用于挑题；extractQuestionOnly 与之无关，不随参数组合重复跑
+     */
+    @State(Scope.Thread)
+    public static class Selection {
+
+        // 候选条数（对应 topK 从 5 扩大到 20）
+        @Param({"5", "20"})
+        public int topK;
+
+        // 候选中已问过的条数，等于 topK 时整批落空
+        @Param({"0", "4", "20"})
+        public int used;
+
+        private VectorStore store;
+        private InterviewSession session;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            List<Document> candidates = candidates(topK);
+            store = new FixedStore(candidates);
+
+            session = new InterviewSession();
+            for (int i = 0; i < Math.min(used, topK); i++) session.getUsedQuestionIds().add(questionId(candidates.get(i)));
+            // 会话里还有其他话题问过的题，判重集合不止当前这几条
+            for (int i = 0; i < 50; i++) session.getUsedQuestionIds().add("其他话题 " + i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Content {
+
+        private final String content = candidates(1).get(0).getContent();
+    }
+
+    private static List<Document> candidates(int count) {
+        List<Document> candidates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            // 一半候选带 topic，另一半走“取内容前 15 字”判重
+            if (i % 2 == 0) metadata.put("topic", "题目 " + i);
+            candidates.add(new Document("面试题：第 " + i + " 题，请说说 Redis 持久化的 RDB 和 AOF 有什么区别？\n"
+                    + "标准答案：RDB 是定期快照，AOF 记录每条写命令……".repeat(4), metadata));
+        }
+        return candidates;
+    }
+
+    private static String questionId(Document d) {
+        Object topic = d.getMetadata().get("topic");
+        return topic != null ? (String) topic : d.getContent().substring(0, Math.min(d.getContent().length(), 15)).trim();
+    }
+
+    @Benchmark
+    public Document searchVectorDBUnique(Selection s) {
+        Document picked = InterviewService.pickUnused("Redis", s.store.similaritySearch(SearchRequest.query("Redis").withTopK(s.topK)), s.session);
+        // 撤销登记，保证每次调用面对的会话状态相同
+        if (picked != null) s.session.getUsedQuestionIds().remove(questionId(picked));
+        return picked;
+    }
+
+    @Benchmark
+    public String extractQuestionOnly(Content c) {
+        return InterviewService.extractQuestionOnly(c.content);
+    }
+
+    private static final class FixedStore implements VectorStore {
+
+        private final List<Document> documents;
+
+        FixedStore(List<Document> documents) {
+            this.documents = documents;
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return documents;
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<Boolean> delete(List<String> idList) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.interviewer_controller.service;
+
+import com.example.interviewer_controller.model.KnowledgeGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图谱查询热路径：每轮对话都会调用 findNeighbors，组装提示词时调用 getFactsByEntity，
+ * 生成大纲时调用 getAllEntities / getAllTopics。
+ * 查询轮流取热门、冷门实体和一个不存在的词，结果是混合后的平均值。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="GraphKnowledgeServiceBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GraphKnowledgeServiceBenchmark {
+
+    @Param({BenchmarkGraphs.REAL, "100000", "1000000"})
+    public String graph;
+
+    private GraphKnowledgeService service;
+    private List<String> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        KnowledgeGraph loaded = BenchmarkGraphs.load(graph);
+        service = new GraphKnowledgeService();
+        System.out.println("【基准图谱】" + service.use(loaded, graph));
+        queries = BenchmarkGraphs.queries(loaded);
+    }
+
+    private String nextQuery() {
+        String query = queries.get(next);
+        next = (next + 1) % queries.size();
+        return query;
+    }
+
+    @Benchmark
+    public List<String> findNeighbors() {
+        return service.findNeighbors(nextQuery());
+    }
+
+    @Benchmark
+    public String getFactsByEntity() {
+        return service.getFactsByEntity(nextQuery());
+    }
+
+    /**
+     * 返回的是图谱上的只读视图，这里连同一次完整遍历一起计时（调用方拼提示词时就是这样用的）
+     */
+    @Benchmark
+    public int getAllEntities() {
+        int chars = 0;
+        for (String entity : service.getAllEntities()) chars += entity.length();
+        return chars;
+    }
+
+    @Benchmark
+    public int getAllTopics() {
+        int chars = 0;
+        for (String topic : service.getAllTopics()) chars += topic == null ? 0 : topic.length();
+        return chars;
+    }
+}
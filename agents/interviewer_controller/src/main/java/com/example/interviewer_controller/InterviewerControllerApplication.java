@@ -9,7 +9,15 @@ import org.springframework.ai.autoconfigure.vectorstore.chroma.ChromaVectorStore
 		org.springframework.ai.autoconfigure.vectorstore.chroma.ChromaVectorStoreAutoConfiguration.class
 })
 public class InterviewerControllerApplication {
+	// 语音引擎连接池的空闲保持时间（秒），JDK 默认 30
+	private static final String HTTP_KEEPALIVE_TIMEOUT = "300";
+
 	public static void main(String[] args) {
+		// JVM 级别的设置，JDK 在第一个 HttpClient 创建时读取，必须赶在 Spring 建出任何 Bean 之前；
+		// 启动参数里给了 -Djdk.httpclient.keepalive.timeout 时以启动参数为准
+		if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+			System.setProperty("jdk.httpclient.keepalive.timeout", HTTP_KEEPALIVE_TIMEOUT);
+		}
 		SpringApplication.run(InterviewerControllerApplication.class, args);
 	}
 }
\ No newline at end of file
@@ -1,15 +1,31 @@
 package com.example.interviewer_controller.config;
 
+import com.example.interviewer_controller.service.BatchingEmbeddingModel;
+import com.example.interviewer_controller.service.CachingEmbeddingModel;
+import com.example.interviewer_controller.service.CachingVectorStore;
+import com.example.interviewer_controller.service.ConversationSummarizer;
+import com.example.interviewer_controller.service.HnswVectorStore;
+import com.example.interviewer_controller.service.SessionChatMemory;
+import com.example.interviewer_controller.service.SpeechEngineClient;
+import com.example.interviewer_controller.service.TtsAudioCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.chroma.ChromaApi;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.ChromaVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier; // 👈 导入这个
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 public class AppConfig {
 
@@ -18,14 +34,132 @@ public class AppConfig {
         return new RestTemplate();
     }
 
+    /**
+     * 语音引擎（STT/TTS）共用的 HTTP 客户端：JDK HttpClient 自带连接池，空闲连接保持复用，
+     * 回调跑在虚拟线程上；本地引擎走明文 HTTP/1.1，不尝试升级 h2c。
+     * 连接池的空闲保持时间是 JVM 级别的设置，在第一个 HttpClient 创建时就已读取，这里设置为时已晚：
+     * 由 InterviewerControllerApplication.main 在启动 Spring 之前设为 300 秒（JDK 默认 30），
+     * 也可以用启动参数 -Djdk.httpclient.keepalive.timeout 覆盖
+     */
     @Bean
-    @Primary
-    public VectorStore vectorStore(@Qualifier("openAiEmbeddingModel") EmbeddingModel embeddingModel) {
+    public HttpClient speechHttpClient(@Value("${engines.http.connect-timeout-ms:2000}") long connectTimeoutMs) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public SpeechEngineClient sttClient(HttpClient speechHttpClient,
+                                        @Value("${engines.stt.max-connections:4}") int maxConnections,
+                                        @Value("${engines.stt.timeout-ms:30000}") long timeoutMs) {
+        return new SpeechEngineClient(speechHttpClient, "STT", maxConnections, Duration.ofMillis(timeoutMs));
+    }
+
+    @Bean
+    public SpeechEngineClient ttsClient(HttpClient speechHttpClient,
+                                        @Value("${engines.tts.max-connections:8}") int maxConnections,
+                                        @Value("${engines.tts.timeout-ms:15000}") long timeoutMs) {
+        return new SpeechEngineClient(speechHttpClient, "TTS", maxConnections, Duration.ofMillis(timeoutMs));
+    }
+
+    /**
+     * TTS 音频缓存：固定话术与重复出现的句子直接返回缓存的音频；磁盘层跨重启保留
+     */
+    @Bean
+    public TtsAudioCache ttsAudioCache(@Value("${engines.tts.voice:default}") String voice,
+                                       @Value("${engines.tts.format:mp3}") String format,
+                                       @Value("${tts.cache.memory-bytes:33554432}") long memoryBytes,
+                                       @Value("${tts.cache.disk-bytes:536870912}") long diskBytes,
+                                       @Value("${tts.cache.path:}") String path,
+                                       MeterRegistry meterRegistry) {
+        TtsAudioCache cache = new TtsAudioCache(voice, format, memoryBytes, diskBytes,
+                path.isBlank() ? null : Paths.get(path));
+        cache.bindMetrics(meterRegistry);
+        return cache;
+    }
+
+    /**
+     * 每轮对话内部并行阶段（纠错、搜题等）与流式接口的执行器：一个任务一个虚拟线程，
+     * 阻塞等待模型或向量库时不占用平台线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService turnExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * 所有会话共享的对话记忆：按会话统计内存（淘汰时由 InterviewSessionManager 一并清理），
+     * 只保留最近几轮原文，更早的对话在后台折叠成摘要，提示词长度不随面试轮数增长
+     */
+    @Bean
+    public SessionChatMemory chatMemory(ConversationSummarizer summarizer,
+                                        @Qualifier("turnExecutor") ExecutorService turnExecutor,
+                                        @Value("${chat.memory.keep-messages:8}") int keepMessages,
+                                        @Value("${chat.memory.fold-messages:4}") int foldMessages,
+                                        MeterRegistry meterRegistry) {
+        SessionChatMemory memory = new SessionChatMemory(summarizer, turnExecutor, keepMessages, foldMessages);
+        memory.bindMetrics(meterRegistry);
+        return memory;
+    }
+
+    /**
+     * 查询向量缓存：关键词跨会话高度重复，命中时不再请求 SiliconFlow；关闭应用时落盘
+     */
+    @Bean(destroyMethod = "persist")
+    public CachingEmbeddingModel cachingEmbeddingModel(
+            @Qualifier("openAiEmbeddingModel") EmbeddingModel embeddingModel,
+            @Value("${spring.ai.openai.embedding.options.model}") String modelName,
+            @Value("${embedding.cache.max-entries:50000}") int maxEntries,
+            @Value("${embedding.cache.path:}") String persistPath,
+            MeterRegistry meterRegistry) {
         // 这里的 @Qualifier("openAiEmbeddingModel") 强制选择了 SiliconFlow 提供的模型
+        CachingEmbeddingModel cache = new CachingEmbeddingModel(embeddingModel, modelName, maxEntries,
+                persistPath.isBlank() ? null : Paths.get(persistPath));
+        cache.bindMetrics(meterRegistry);
+        return cache;
+    }
+
+    /**
+     * 再包一层批量预取，多路检索时一次请求算出全部查询向量（未命中缓存的部分）
+     */
+    @Bean
+    public BatchingEmbeddingModel batchingEmbeddingModel(CachingEmbeddingModel embeddingModel) {
+        return new BatchingEmbeddingModel(embeddingModel);
+    }
+
+    /**
+     * 向量库：vectorstore.type=chroma 走 Chroma 服务，hnsw 使用进程内 mmap 的 HNSW 索引；
+     * 外面统一再包一层检索结果缓存，所有会话共享
+     */
+    @Bean
+    @Primary
+    public CachingVectorStore vectorStore(BatchingEmbeddingModel embeddingModel,
+                                          @Qualifier("openAiEmbeddingModel") EmbeddingModel documentEmbedding,
+                                          @Value("${vectorstore.type:chroma}") String type,
+                                          @Value("${spring.ai.vectorstore.chroma.client.base-url}") String chromaUrl,
+                                          @Value("${vectorstore.chroma.collection:langchain}") String chromaCollection,
+                                          @Value("${vectorstore.hnsw.path}") String hnswPath,
+                                          @Value("${vectorstore.hnsw.ef-search:64}") int efSearch,
+                                          @Value("${vectorstore.cache.ttl-seconds:600}") long cacheTtlSeconds,
+                                          @Value("${vectorstore.cache.max-entries:10000}") int cacheMaxEntries,
+                                          MeterRegistry meterRegistry) throws Exception {
+        VectorStore backend;
+        if ("hnsw".equalsIgnoreCase(type)) {
+            backend = new HnswVectorStore(embeddingModel, documentEmbedding, Paths.get(hnswPath), efSearch);
+        } else {
+            ChromaApi chromaApi = new ChromaApi(chromaUrl);
 
-        ChromaApi chromaApi = new ChromaApi("http://localhost:8001");
+            // 按照之前的报错，参数顺序为：EmbeddingModel, ChromaApi, String, boolean
+            ChromaVectorStore chroma = new ChromaVectorStore(embeddingModel, chromaApi, chromaCollection, false);
+            // 这里 new 出来的实例不是 Spring 管理的 Bean，需要手动初始化，否则 collectionId 未解析，检索全部失败
+            chroma.afterPropertiesSet();
+            backend = chroma;
+        }
 
-        // 按照之前的报错，参数顺序为：EmbeddingModel, ChromaApi, String, boolean
-        return new ChromaVectorStore(embeddingModel, chromaApi, "langchain", false);
+        CachingVectorStore cached = new CachingVectorStore(backend, cacheTtlSeconds, cacheMaxEntries);
+        cached.bindMetrics(meterRegistry);
+        return cached;
     }
 }
\ No newline at end of file
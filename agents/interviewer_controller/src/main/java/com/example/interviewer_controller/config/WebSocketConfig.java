@@ -0,0 +1,36 @@
+package com.example.interviewer_controller.config;
+
+import com.example.interviewer_controller.controller.SttWebSocketHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final SttWebSocketHandler sttHandler;
+
+    public WebSocketConfig(SttWebSocketHandler sttHandler) {
+        this.sttHandler = sttHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(sttHandler, "/ws/stt");
+    }
+
+    /**
+     * 录音每 256ms 左右发送一块 PCM（16kHz 下约 8KB），Tomcat 默认的 8KB 消息缓冲不够用
+     */
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(256 * 1024);
+        container.setMaxTextMessageBufferSize(16 * 1024);
+        return container;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.interviewer_controller.controller;
+
+import com.example.interviewer_controller.service.AudioStore;
+import com.example.interviewer_controller.service.TtsAudioCache;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/audio")
+public class AudioController {
+
+    private static final MediaType AUDIO_MPEG = MediaType.parseMediaType("audio/mpeg");
+
+    private final AudioStore audioStore;
+    private final TtsAudioCache ttsCache;
+
+    public AudioController(AudioStore audioStore, TtsAudioCache ttsCache) {
+        this.audioStore = audioStore;
+        this.ttsCache = ttsCache;
+    }
+
+    /**
+     * 以二进制返回合成好的语音；返回 Resource 时 Spring 会自动处理 Range 请求（206 分段响应）
+     */
+    @GetMapping("/{audioId}")
+    public ResponseEntity<Resource> getAudio(@PathVariable String audioId) {
+        byte[] audio = audioStore.get(audioId);
+        if (audio == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(AUDIO_MPEG)
+                .cacheControl(CacheControl.maxAge(2, TimeUnit.MINUTES).cachePrivate())
+                .body(new ByteArrayResource(audio));
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return audioStore.getStatus();
+    }
+
+    /**
+     * TTS 音频缓存各层的大小与命中率
+     */
+    @GetMapping("/tts-cache/status")
+    public Map<String, Object> ttsCacheStatus() {
+        return ttsCache.getStats();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.interviewer_controller.controller;
+
+import com.example.interviewer_controller.service.GraphKnowledgeService;
+import com.example.interviewer_controller.service.QuestionIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/graph")
+public class GraphAdminController {
+
+    private final GraphKnowledgeService graphService;
+    private final QuestionIndexService questionIndex;
+
+    public GraphAdminController(GraphKnowledgeService graphService, QuestionIndexService questionIndex) {
+        this.graphService = graphService;
+        this.questionIndex = questionIndex;
+    }
+
+    /**
+     * 重新加载知识图谱（后台构建、原子替换，不影响进行中的面试）
+     * 返回本次加载的耗时与内存报告
+     */
+    @PostMapping("/reload")
+    public CompletableFuture<Map<String, Object>> reload() {
+        log.info("graph.reload.request");
+        return graphService.reload();
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return graphService.getStatus();
+    }
+
+    /**
+     * 重新生成 实体 -> 候选题 索引（图谱或题库更新后调用）
+     */
+    @PostMapping("/question-index")
+    public Map<String, Object> buildQuestionIndex() throws IOException {
+        log.info("question.index.build.request");
+        return questionIndex.build();
+    }
+
+    @GetMapping("/question-index/status")
+    public Map<String, Object> questionIndexStatus() {
+        return questionIndex.getStatus();
+    }
+}
@@ -1,24 +1,54 @@
 package com.example.interviewer_controller.controller;
 
+import com.example.interviewer_controller.model.SentenceSplitter;
+import com.example.interviewer_controller.service.AudioStore;
 import com.example.interviewer_controller.service.InterviewService;
+import com.example.interviewer_controller.service.InterviewSessionManager;
+import com.example.interviewer_controller.service.QuestionPrefetcher;
+import com.example.interviewer_controller.service.SessionTurnExecutor;
 import com.example.interviewer_controller.service.SpeechService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
         import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+@Slf4j
 @RestController
 @RequestMapping("/api")
 public class InterviewController {
 
     private final SpeechService speechService;
     private final InterviewService interviewService;
+    private final AudioStore audioStore;
+    private final InterviewSessionManager sessionManager;
+    private final QuestionPrefetcher prefetcher;
+
+    // 按会话串行执行轮次：同一会话的请求排队，不同会话各自在虚拟线程上并行
+    private final SessionTurnExecutor turns;
 
     // Spring 会自动把上面写好的两个 Service 注入进来
-    public InterviewController(SpeechService speechService, InterviewService interviewService) {
+    public InterviewController(SpeechService speechService, InterviewService interviewService, AudioStore audioStore,
+                               InterviewSessionManager sessionManager, SessionTurnExecutor turns,
+                               QuestionPrefetcher prefetcher) {
         this.speechService = speechService;
         this.interviewService = interviewService;
+        this.audioStore = audioStore;
+        this.sessionManager = sessionManager;
+        this.turns = turns;
+        this.prefetcher = prefetcher;
     }
 
     @PostMapping("/interview")
@@ -28,30 +58,21 @@ public class InterviewController {
             // 关键：增加 text 参数，用于接收 "START" 信号
             @RequestParam(value = "text", required = false) String text,
             @RequestParam(value = "sessionId", defaultValue = "test-session") String sessionId,
-            @RequestParam(value = "mode", defaultValue = "finetuned") String mode) {
+            @RequestParam(value = "mode", defaultValue = "finetuned") String mode,
+            // audio=url 时只返回音频地址（audioUrl），音频本体通过 GET /api/audio/{audioId} 以二进制下载
+            @RequestParam(value = "audio", defaultValue = "base64") String audioMode) {
 
 
         // 加上这个日志，如果你能在控制台看到这行，说明请求进来了！
-        System.out.println(">>> 接口收到请求: text=" + text + ", hasFile=" + (file != null));
-
-        String userText = "";
-        if (file != null && !file.isEmpty()) {
-            userText = speechService.speechToText(file.getResource());
-        } else {
-            userText = text; // 如果没语音，就用文字（处理 START）
-        }
+        log.info("interview.request sessionId={} mode={} hasFile={} text={}", sessionId, mode, file != null, text);
 
-        // 逻辑分发：如果 userText 是空的，给个默认
-        if (userText == null || userText.isEmpty()) {
-            userText = "START";
-        }
+        String userText = resolveUserText(file, text);
 
         String aiResponse;
-        System.out.println("mode" + mode);
         if ("base".equalsIgnoreCase(mode)) {
             // 模式一：原始模型 + 复杂逻辑 + 知识图谱
-            System.out.println(">>> [切换至：基础模式]");
-            InterviewService.ChatResult resultObj = interviewService.chat(userText, sessionId, "qwen3:8b"); // 假设基础模型名是这个
+            final String input = userText;
+            InterviewService.ChatResult resultObj = turns.call(sessionId, () -> interviewService.chat(input, sessionId, "qwen3:8b")); // 假设基础模型名是这个
             // 3. 组装返回给前端
             Map<String, Object> result = new HashMap<>();
             // 关键：这里传回的是 resultObj 里的 correctedUserText (纠错后的)
@@ -59,8 +80,8 @@ public class InterviewController {
             aiResponse = resultObj.getAiResponse();
         } else {
             // 模式二：微调模型 + 简化逻辑
-            System.out.println(">>> [切换至：微调模式]");
-            aiResponse = interviewService.chat_2(userText, sessionId, "interviewer-qwen3");
+            final String input = userText;
+            aiResponse = turns.call(sessionId, () -> interviewService.chat_2(input, sessionId, "interviewer-qwen3"));
         }
 
         byte[] audioBytes = speechService.textToSpeech(aiResponse);
@@ -68,7 +89,184 @@ public class InterviewController {
         Map<String, Object> result = new HashMap<>();
         result.put("userText", userText);
         result.put("aiText", aiResponse);
-        result.put("audio", Base64.getEncoder().encodeToString(audioBytes));
+        putAudio(result, audioBytes, audioMode);
+        putReportUrl(result, sessionId);
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 最终报告（轮询）：status 为 none / pending / ready / failed，ready 时附带 report
+     */
+    @GetMapping(value = "/interview/{sessionId}/report", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> finalReport(@PathVariable String sessionId) {
+        return interviewService.getFinalReportStatus(sessionId);
+    }
+
+    /**
+     * 最终报告（SSE）：生成完成时推送一次 report 事件后结束，失败推送 error；面试尚未结束返回 404
+     */
+    @GetMapping(value = "/interview/{sessionId}/report", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter finalReportStream(@PathVariable String sessionId) {
+        CompletableFuture<String> report = interviewService.getFinalReport(sessionId);
+        if (report == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "面试尚未结束，没有最终报告");
+        }
+        SseEmitter emitter = new SseEmitter(300_000L);
+        report.whenComplete((text, error) -> {
+            try {
+                if (error == null) {
+                    send(emitter, "report", Map.of("report", text));
+                } else {
+                    send(emitter, "error", Map.of("message", String.valueOf(error.getMessage())));
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                // 客户端已断开
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 当前会话数、估算内存与淘汰次数
+     */
+    @GetMapping("/interview/sessions/status")
+    public Map<String, Object> sessionStatus() {
+        return sessionManager.getStatus();
+    }
+
+    /**
+     * 下一题投机预取的命中率
+     */
+    @GetMapping("/interview/prefetch/status")
+    public Map<String, Object> prefetchStatus() {
+        return prefetcher.getStatus();
+    }
+
+    /**
+     * 流式版本的面试接口（SSE）：
+     * 1. user  —— 纠错后的用户文本，纠错一完成就推送
+     * 2. token —— 模型逐段生成的回复
+     * 3. audio —— 逐句合成的 TTS 音频（Base64 或 audioUrl），按句序推送，与 token 交错到达
+     * 4. done  —— 完整回复文本，标志本轮结束；面试在本轮结束时附带 reportUrl；出错时推送 error
+     */
+    @PostMapping(value = "/interview/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter handleInterviewStream(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "text", required = false) String text,
+            @RequestParam(value = "sessionId", defaultValue = "test-session") String sessionId,
+            @RequestParam(value = "mode", defaultValue = "finetuned") String mode,
+            @RequestParam(value = "audio", defaultValue = "base64") String audioMode) {
+
+        log.info("interview.stream.request sessionId={} mode={} hasFile={} text={}", sessionId, mode, file != null, text);
+
+        // 语音识别必须在请求线程内完成：异步处理开始后，上传的临时文件随时可能被清理
+        String userText = resolveUserText(file, text);
+        SseEmitter emitter = new SseEmitter(300_000L);
+
+        // 整轮（包括流式生成与语音合成）都在会话邮箱里执行，生成结束时才会更新会话的 lastQuestion；
+        // 同一会话已有轮次在排队时直接抛出 TurnRejectedException（429），此时 SSE 尚未开始
+        turns.submit(sessionId, () -> {
+            try {
+                AtomicBoolean userSent = new AtomicBoolean(false);
+                InterviewService.TurnReply reply;
+                if ("base".equalsIgnoreCase(mode)) {
+                    reply = interviewService.prepareChat(userText, sessionId, "qwen3:8b", corrected -> {
+                        send(emitter, "user", Map.of("text", corrected));
+                        userSent.set(true);
+                    });
+                } else {
+                    reply = interviewService.prepareChat2(userText, sessionId, "interviewer-qwen3");
+                }
+                if (!userSent.get()) send(emitter, "user", Map.of("text", reply.getCorrectedUserText()));
+
+                // 文字逐段推送的同时断句，凑满一句就送去合成，音频按句序推送
+                StringBuilder aiResponse = new StringBuilder();
+                SentenceSplitter splitter = new SentenceSplitter();
+                Flux<String> sentences = reply.stream()
+                        .doOnNext(token -> {
+                            aiResponse.append(token);
+                            send(emitter, "token", Map.of("text", token));
+                        })
+                        .concatMapIterable(splitter::push)
+                        .concatWith(Mono.fromSupplier(splitter::flush).filter(rest -> !rest.isBlank()));
+
+                speechService.textToSpeechPipelined(sentences)
+                        .doOnNext(segment -> {
+                            Map<String, Object> data = new HashMap<>();
+                            data.put("seq", segment.seq());
+                            data.put("text", segment.text());
+                            putAudio(data, segment.audio(), audioMode);
+                            send(emitter, "audio", data);
+                        })
+                        .blockLast();
+
+                Map<String, Object> done = new HashMap<>();
+                done.put("aiText", aiResponse.toString());
+                putReportUrl(done, sessionId);
+                send(emitter, "done", done);
+                emitter.complete();
+            } catch (Exception e) {
+                log.error("interview.stream.failed sessionId={} error={}", sessionId, e.getMessage());
+                try {
+                    send(emitter, "error", Map.of("message", String.valueOf(e.getMessage())));
+                    emitter.complete();
+                } catch (Exception ignored) {
+                    // 客户端已断开
+                    emitter.completeWithError(e);
+                }
+            }
+            return null;
+        });
+        return emitter;
+    }
+
+    /**
+     * 语音优先，其次文字；都没有时视为 START
+     */
+    private String resolveUserText(MultipartFile file, String text) {
+        String userText;
+        if (file != null && !file.isEmpty()) {
+            userText = speechService.speechToText(file.getResource());
+        } else {
+            userText = text; // 如果没语音，就用文字（处理 START）
+        }
+
+        // 逻辑分发：如果 userText 是空的，给个默认
+        if (userText == null || userText.isEmpty()) {
+            userText = "START";
+        }
+        return userText;
+    }
+
+    /**
+     * 按 audio 参数放入音频：url 模式存入 AudioStore 只返回地址，否则内联 Base64（兼容旧前端）
+     * 包级可见供 JMH 基准测量响应序列化
+     */
+    void putAudio(Map<String, Object> result, byte[] audioBytes, String audioMode) {
+        if ("url".equalsIgnoreCase(audioMode)) {
+            result.put("audioUrl", audioBytes.length > 0 ? "/api/audio/" + audioStore.put(audioBytes) : null);
+        } else {
+            result.put("audio", Base64.getEncoder().encodeToString(audioBytes));
+        }
+    }
+
+    /**
+     * 面试已结束时附上最终报告的查询地址，报告在后台生成
+     */
+    private void putReportUrl(Map<String, Object> result, String sessionId) {
+        if (interviewService.getFinalReport(sessionId) != null) {
+            result.put("reportUrl", "/api/interview/" + sessionId + "/report");
+        }
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            // 客户端断开后抛出，中断上游的模型生成
+            throw new UncheckedIOException(e);
+        }
+    }
+}
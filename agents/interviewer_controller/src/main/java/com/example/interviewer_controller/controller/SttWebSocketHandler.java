@@ -0,0 +1,117 @@
+package com.example.interviewer_controller.controller;
+
+import com.example.interviewer_controller.service.SttEngine;
+import com.example.interviewer_controller.service.StreamingTranscription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 边录边传的语音识别（/ws/stt）：
+ *   客户端 -> {"type":"start","sampleRate":16000}，随后以二进制消息持续发送 PCM（16 位小端、单声道），
+ *             松手时发送 {"type":"stop"}，放弃本段录音发送 {"type":"cancel"}
+ *   服务端 -> {"type":"partial","text":...} 录音过程中已识别出的前缀文本
+ *             {"type":"final","text":...}   stop 之后的完整文本
+ *             {"type":"error","message":...}
+ * 一个连接上可以依次录多段，每段以 start 开始。识别出的文本由前端以文字形式提交给面试接口。
+ */
+@Slf4j
+@Component
+public class SttWebSocketHandler extends AbstractWebSocketHandler {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String TRANSCRIPTION = "transcription";
+    private static final String SENDER = "sender";
+
+    private final SttEngine sttEngine;
+    private final ExecutorService executor;
+
+    // 窗口越短，松手后要等的尾巴越短，但单个窗口的上下文也越少
+    @Value("${stt.stream.window-ms:4000}")
+    private int windowMs;
+
+    // 单段录音的时长上限（秒）
+    @Value("${stt.stream.max-seconds:300}")
+    private int maxSeconds;
+
+    public SttWebSocketHandler(SttEngine sttEngine, @Qualifier("turnExecutor") ExecutorService executor) {
+        this.sttEngine = sttEngine;
+        this.executor = executor;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // 识别结果在识别线程上推送，WebSocketSession 本身不允许并发发送
+        session.getAttributes().put(SENDER, new ConcurrentWebSocketSessionDecorator(session, 5_000, 64 * 1024));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        JsonNode command = MAPPER.readTree(message.getPayload());
+        String type = command.path("type").asText();
+        switch (type) {
+            case "start" -> {
+                int sampleRate = command.path("sampleRate").asInt(16000);
+                session.getAttributes().put(TRANSCRIPTION, new StreamingTranscription(sttEngine, executor, sampleRate, windowMs,
+                        partial -> send(session, Map.of("type", "partial", "text", partial))));
+            }
+            case "stop" -> {
+                StreamingTranscription transcription = (StreamingTranscription) session.getAttributes().remove(TRANSCRIPTION);
+                if (transcription == null) {
+                    send(session, Map.of("type", "error", "message", "尚未开始录音"));
+                    return;
+                }
+                long stoppedAt = System.currentTimeMillis();
+                transcription.finish().whenComplete((text, error) -> {
+                    if (error != null) {
+                        send(session, Map.of("type", "error", "message", String.valueOf(error.getMessage())));
+                        return;
+                    }
+                    log.debug("stt.stream.final recordedMs={} tailMs={}", transcription.receivedMs(), System.currentTimeMillis() - stoppedAt);
+                    send(session, Map.of("type", "final", "text", text));
+                });
+            }
+            case "cancel" -> session.getAttributes().remove(TRANSCRIPTION);
+            default -> send(session, Map.of("type", "error", "message", "未知指令: " + type));
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        StreamingTranscription transcription = (StreamingTranscription) session.getAttributes().get(TRANSCRIPTION);
+        if (transcription == null) return;  // 取消后仍在途的音频
+        if (transcription.receivedMs() > maxSeconds * 1000L) {
+            session.getAttributes().remove(TRANSCRIPTION);
+            send(session, Map.of("type", "error", "message", "单段录音超过 " + maxSeconds + " 秒"));
+            return;
+        }
+        byte[] pcm = new byte[message.getPayloadLength()];
+        message.getPayload().get(pcm);
+        transcription.append(pcm);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        session.getAttributes().remove(TRANSCRIPTION);
+    }
+
+    private static void send(WebSocketSession session, Map<String, Object> payload) {
+        WebSocketSession sender = (WebSocketSession) session.getAttributes().getOrDefault(SENDER, session);
+        try {
+            if (sender.isOpen()) sender.sendMessage(new TextMessage(MAPPER.writeValueAsString(payload)));
+        } catch (IOException e) {
+            // 客户端可能已断开
+            log.warn("stt.stream.send.failed sessionId={} error={}", session.getId(), e.getMessage());
+        }
+    }
+}
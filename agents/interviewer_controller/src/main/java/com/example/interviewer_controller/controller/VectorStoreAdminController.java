@@ -0,0 +1,42 @@
+package com.example.interviewer_controller.controller;
+
+import com.example.interviewer_controller.service.CachingVectorStore;
+import com.example.interviewer_controller.service.HnswVectorStore;
+import com.example.interviewer_controller.service.VectorIndexImporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/vectorstore")
+public class VectorStoreAdminController {
+
+    private final VectorIndexImporter importer;
+    private final CachingVectorStore vectorStore;
+
+    public VectorStoreAdminController(VectorIndexImporter importer, CachingVectorStore vectorStore) {
+        this.importer = importer;
+        this.vectorStore = vectorStore;
+    }
+
+    /**
+     * 生成 HNSW 索引文件：source=chroma 从现有集合拷贝向量，source=json 从清洗后的数据重新向量化
+     * 当前使用的是 HNSW 库时导入完成后立即热加载
+     */
+    @PostMapping("/import")
+    public Map<String, Object> importIndex(@RequestParam(value = "source", defaultValue = "chroma") String source) throws IOException {
+        log.info("vectorstore.import.request source={}", source);
+        return importer.importFrom(source);
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        if (vectorStore.getDelegate() instanceof HnswVectorStore hnsw) {
+            return hnsw.getStatus();
+        }
+        return Map.of("type", "chroma", "cachedSearches", vectorStore.size());
+    }
+}
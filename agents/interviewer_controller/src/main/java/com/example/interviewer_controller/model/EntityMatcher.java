@@ -0,0 +1,240 @@
+package com.example.interviewer_controller.model;
+
+import java.util.*;
+
+/**
+ * 基于 Aho-Corasick 自动机的实体识别器（词典为图谱中的全部实体）
+ * 1. 文本与词典统一做大小写折叠 + 全角转半角，中英文混排一次扫描完成
+ * 2. 英文/数字开头或结尾的实体要求落在单词边界上，避免 "IO" 命中 "ratio"
+ * 3. 多个命中时按：实体长度（越具体越优先）> 图谱度数 > 出现位置 排序
+ */
+public final class EntityMatcher {
+
+    // 少于 2 个字符的实体（如单字"锁"）误命中率太高，不参与匹配
+    private static final int MIN_PATTERN_LENGTH = 2;
+
+    // 自动机节点（0 为根）。子节点按 CSR 存放：节点 n 的子节点为 childNodes[childStart[n] .. childStart[n+1])，
+    // 对应的字符 childLabels 按升序排列，转移时二分查找；全部是基本类型数组，不为每次转移装箱
+    private final int[] fail;
+    private final int[] output;              // 以该节点结尾的词条编号，-1 表示无
+    private final int[] dictLink;            // 沿 fail 链最近的一个有输出的节点，-1 表示无
+    private final int[] childStart;
+    private final char[] childLabels;
+    private final int[] childNodes;
+
+    // 词条（折叠后去重），每个词条记下度数最高的原始实体编号，命中时才从图谱取名字
+    private final KnowledgeGraph graph;
+    private final int[] patternEntities;
+    private final int[] patternLengths;
+    private final int[] patternDegrees;
+
+    public EntityMatcher(KnowledgeGraph graph) {
+        this.graph = graph;
+        Map<String, Integer> patternIds = new HashMap<>();
+        List<String> folds = new ArrayList<>();
+        List<Integer> entities = new ArrayList<>();
+        List<Integer> degrees = new ArrayList<>();
+        List<Integer> nameDegrees = new ArrayList<>();
+        int totalChars = 0;
+        for (int e = 0; e < graph.entityCount(); e++) {
+            // 构建时不缓存解码结果，否则全部实体名都会留在堆上
+            String folded = fold(graph.decodeEntityName(e)).trim();
+            if (folded.length() < MIN_PATTERN_LENGTH || isAllDigits(folded)) continue;
+
+            int degree = graph.degree(e);
+            Integer id = patternIds.get(folded);
+            if (id == null) {
+                patternIds.put(folded, folds.size());
+                entities.add(e);
+                folds.add(folded);
+                degrees.add(degree);
+                nameDegrees.add(degree);
+                totalChars += folded.length();
+            } else {
+                // 大小写不同的同名实体合并，度数累加，名字取度数大的那个
+                if (degree > nameDegrees.get(id)) {
+                    entities.set(id, e);
+                    nameDegrees.set(id, degree);
+                }
+                degrees.set(id, degrees.get(id) + degree);
+            }
+        }
+
+        int patterns = folds.size();
+        patternEntities = new int[patterns];
+        patternLengths = new int[patterns];
+        patternDegrees = new int[patterns];
+        for (int p = 0; p < patterns; p++) {
+            patternEntities[p] = entities.get(p);
+            patternLengths[p] = folds.get(p).length();
+            patternDegrees[p] = degrees.get(p);
+        }
+
+        // 按折叠后的词条升序插入：同一父节点的子节点按字符升序产生，要找的子节点只可能是最近建的那个
+        List<Integer> order = new ArrayList<>(patterns);
+        for (int p = 0; p < patterns; p++) order.add(p);
+        order.sort(Comparator.comparing(folds::get));
+
+        int capacity = totalChars + 1;
+        int[] parent = new int[capacity];
+        int[] lastChild = new int[capacity];
+        char[] label = new char[capacity];
+        int[] out = new int[capacity];
+        Arrays.fill(lastChild, -1);
+        Arrays.fill(out, -1);
+        int nodeCount = 1;
+        for (int p : order) {
+            String pattern = folds.get(p);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                int last = lastChild[state];
+                if (last >= 0 && label[last] == c) {
+                    state = last;
+                } else {
+                    int node = nodeCount++;
+                    parent[node] = state;
+                    label[node] = c;
+                    lastChild[state] = node;
+                    state = node;
+                }
+            }
+            out[state] = p;
+        }
+
+        // 节点编号按创建顺序递增，依次追加到父节点的区间里，区间内的字符自然有序
+        childStart = new int[nodeCount + 1];
+        for (int node = 1; node < nodeCount; node++) childStart[parent[node] + 1]++;
+        for (int node = 0; node < nodeCount; node++) childStart[node + 1] += childStart[node];
+        childLabels = new char[nodeCount - 1];
+        childNodes = new int[nodeCount - 1];
+        int[] filled = Arrays.copyOf(childStart, nodeCount);
+        for (int node = 1; node < nodeCount; node++) {
+            int slot = filled[parent[node]]++;
+            childLabels[slot] = label[node];
+            childNodes[slot] = node;
+        }
+
+        output = Arrays.copyOf(out, nodeCount);
+        fail = new int[nodeCount];
+        dictLink = new int[nodeCount];
+        buildFailLinks();
+    }
+
+    public int patternCount() {
+        return patternEntities.length;
+    }
+
+    /**
+     * 返回文本中最具体的一个实体名；没有命中时返回 null
+     */
+    public String bestMatch(String text) {
+        List<String> all = matchAll(text);
+        return all.isEmpty() ? null : all.get(0);
+    }
+
+    /**
+     * 返回文本中命中的所有实体（已去重，按优先级排序）
+     */
+    public List<String> matchAll(String text) {
+        if (text == null || text.isEmpty()) return new ArrayList<>();
+        String s = fold(text);
+
+        // patternId -> 首次出现位置
+        Map<Integer, Integer> hits = new LinkedHashMap<>();
+        int state = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            int next;
+            while ((next = child(state, c)) < 0 && state != 0) state = fail[state];
+            state = Math.max(next, 0);
+
+            for (int node = output[state] >= 0 ? state : dictLink[state]; node >= 0; node = dictLink[node]) {
+                int pid = output[node];
+                int start = i - patternLengths[pid] + 1;
+                if (onWordBoundary(s, start, i)) hits.putIfAbsent(pid, start);
+            }
+        }
+
+        List<Integer> ranked = new ArrayList<>(hits.keySet());
+        ranked.sort(Comparator.<Integer>comparingInt(pid -> patternLengths[pid]).reversed()
+                .thenComparing(Comparator.<Integer>comparingInt(pid -> patternDegrees[pid]).reversed())
+                .thenComparingInt(hits::get));
+
+        List<String> result = new ArrayList<>(ranked.size());
+        for (int pid : ranked) result.add(graph.entityName(patternEntities[pid]));
+        return result;
+    }
+
+    /**
+     * 节点 node 经字符 c 转移到的子节点，没有时返回 -1
+     */
+    private int child(int node, char c) {
+        int lo = childStart[node];
+        int hi = childStart[node + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char m = childLabels[mid];
+            if (m < c) lo = mid + 1;
+            else if (m > c) hi = mid - 1;
+            else return childNodes[mid];
+        }
+        return -1;
+    }
+
+    private void buildFailLinks() {
+        Arrays.fill(dictLink, -1);
+        // 按层遍历，每个节点只入队一次
+        int[] queue = new int[fail.length];
+        int head = 0;
+        int tail = 0;
+        for (int k = childStart[0]; k < childStart[1]; k++) {
+            fail[childNodes[k]] = 0;
+            queue[tail++] = childNodes[k];
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int k = childStart[node]; k < childStart[node + 1]; k++) {
+                int next = childNodes[k];
+                char c = childLabels[k];
+                int f = fail[node];
+                int target;
+                while ((target = child(f, c)) < 0 && f != 0) f = fail[f];
+                fail[next] = Math.max(target, 0);
+                int fc = fail[next];
+                dictLink[next] = output[fc] >= 0 ? fc : dictLink[fc];
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    private static boolean onWordBoundary(String s, int start, int end) {
+        if (isAsciiWordChar(s.charAt(start)) && start > 0 && isAsciiWordChar(s.charAt(start - 1))) return false;
+        return !(isAsciiWordChar(s.charAt(end)) && end + 1 < s.length() && isAsciiWordChar(s.charAt(end + 1)));
+    }
+
+    private static boolean isAsciiWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isAllDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 逐字符折叠：全角 ASCII 转半角、全角空格转半角、转小写。长度保持不变，保证下标可对齐
+     */
+    static String fold(String text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            char c = text.charAt(i);
+            if (c >= '！' && c <= '～') c = (char) (c - 0xFEE0);
+            else if (c == '　') c = ' ';
+            chars[i] = Character.toLowerCase(c);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.interviewer_controller.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 实体 -> 候选题 的预计算索引（离线构建，启动时整体加载）
+ * 每个图谱实体对应按相似度排好序的题目下标，题目正文只存一份：
+ *   questions  题库中被任一实体命中的题（id、正文、metadata）
+ *   entities   实体名 -> questions 下标数组（已按相关度从高到低）
+ * 运行时"实体 X 的下一道题"只需一次哈希查找，不再经过向量化与相似度搜索。
+ */
+public final class EntityQuestionIndex {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Document> questions;
+    private final Map<String, int[]> byEntity;
+    private final int depth;
+    private final long builtAt;
+
+    private EntityQuestionIndex(List<Document> questions, Map<String, int[]> byEntity, int depth, long builtAt) {
+        this.questions = questions;
+        this.byEntity = byEntity;
+        this.depth = depth;
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * 由各实体的检索结果构建索引，同一道题（按文档 id）只保留一份
+     * @param depth 每个实体保留的候选数
+     */
+    public static EntityQuestionIndex build(Map<String, List<Document>> candidates, int depth) {
+        List<Document> questions = new ArrayList<>();
+        Map<String, Integer> positions = new HashMap<>();
+        Map<String, int[]> byEntity = new HashMap<>(candidates.size() * 2);
+        for (Map.Entry<String, List<Document>> e : candidates.entrySet()) {
+            List<Document> docs = e.getValue() == null ? List.of() : e.getValue();
+            int[] ids = new int[Math.min(docs.size(), depth)];
+            for (int i = 0; i < ids.length; i++) {
+                Document d = docs.get(i);
+                ids[i] = positions.computeIfAbsent(d.getId(), k -> {
+                    // 检索时附带的 distance 是相对当前查询的，存进索引没有意义
+                    Map<String, Object> metadata = new HashMap<>(d.getMetadata());
+                    metadata.remove("distance");
+                    questions.add(new Document(d.getId(), d.getContent(), metadata));
+                    return questions.size() - 1;
+                });
+            }
+            byEntity.put(e.getKey(), ids);
+        }
+        return new EntityQuestionIndex(List.copyOf(questions), byEntity, depth, System.currentTimeMillis());
+    }
+
+    /**
+     * 实体的前 topK 道候选题；索引中没有该实体、或索引深度不够回答 topK 时返回 null，由调用方走实时检索
+     */
+    public List<Document> candidates(String entity, int topK) {
+        int[] ids = entity == null ? null : byEntity.get(entity.trim());
+        if (ids == null) return null;
+        // 存满了 depth 条说明题库里可能还有更多，要更深的结果只能实时检索
+        if (topK > depth && ids.length >= depth) return null;
+        List<Document> docs = new ArrayList<>(Math.min(ids.length, topK));
+        for (int i = 0; i < ids.length && i < topK; i++) docs.add(questions.get(ids[i]));
+        return docs;
+    }
+
+    public boolean contains(String entity) {
+        return entity != null && byEntity.containsKey(entity.trim());
+    }
+
+    public int entityCount() {
+        return byEntity.size();
+    }
+
+    public int questionCount() {
+        return questions.size();
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    /**
+     * 文件的持久化形式
+     */
+    private record StoredQuestion(String id, String content, Map<String, Object> metadata) {
+    }
+
+    private record StoredIndex(int version, int depth, long builtAt, List<StoredQuestion> questions,
+                               Map<String, int[]> entities) {
+    }
+
+    /**
+     * 先写临时文件再原子替换
+     */
+    public void write(Path target) throws IOException {
+        List<StoredQuestion> stored = new ArrayList<>(questions.size());
+        for (Document d : questions) stored.add(new StoredQuestion(d.getId(), d.getContent(), d.getMetadata()));
+
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        MAPPER.writeValue(tmp.toFile(), new StoredIndex(FORMAT_VERSION, depth, builtAt, stored, new TreeMap<>(byEntity)));
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static EntityQuestionIndex load(Path file) throws IOException {
+        StoredIndex stored = MAPPER.readValue(file.toFile(), StoredIndex.class);
+        if (stored.version() != FORMAT_VERSION) {
+            throw new IOException("题目索引版本不匹配: " + stored.version() + "，请重新生成 " + file);
+        }
+        List<Document> questions = new ArrayList<>(stored.questions().size());
+        for (StoredQuestion q : stored.questions()) {
+            questions.add(new Document(q.id(), q.content(), q.metadata() == null ? new HashMap<>() : q.metadata()));
+        }
+        for (int[] ids : stored.entities().values()) {
+            for (int id : ids) {
+                if (id < 0 || id >= questions.size()) throw new IOException("题目索引文件已损坏（下标越界）: " + file);
+            }
+        }
+        return new EntityQuestionIndex(List.copyOf(questions), new HashMap<>(stored.entities()), stored.depth(), stored.builtAt());
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.interviewer_controller.model;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * HNSW 近似最近邻索引（余弦相似度，向量入库时先归一化，检索时只做点积）
+ * 存储分两段，都可以直接 mmap：
+ *   向量段（vectors.f32）：头部 4 个 int（magic、version、count、dim）+ 归一化后的 float[count*dim]
+ *   图段（graph.hnsw）：头部 8 个 int（magic、version、count、M、maxLevel、entryPoint、upperSize、保留）
+ *     levels[count]       每个节点的最高层
+ *     upperOffsets[count] 节点在上层邻接区的起始下标
+ *     level0[count*(2M+1)] 第 0 层邻接表，每个节点一个定长槽：[邻居数, 邻居...]
+ *     upper[upperSize]    第 1 层及以上的邻接表，每层一个定长槽：[邻居数, 邻居...]，槽长 M+1
+ * 层数在构建前一次性随机好，所以邻接表可以用定长槽原地构建，构建完的内存布局与文件布局完全一致。
+ */
+public final class HnswIndex {
+
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+    private static final int VECTOR_MAGIC = 0x31465648; // "HVF1"
+    private static final int GRAPH_MAGIC = 0x31474E48;  // "HNG1"
+    private static final int VERSION = 1;
+    private static final int VECTOR_HEADER_INTS = 4;
+    private static final int GRAPH_HEADER_INTS = 8;
+    private static final int MAX_LEVEL_CAP = 16;
+
+    private final int count;
+    private final int dim;
+    private final int m;
+    private final FloatBuffer vectors;
+    private final IntBuffer levels;
+    private final IntBuffer upperOffsets;
+    private final IntBuffer level0;
+    private final IntBuffer upper;
+    private int maxLevel;
+    private int entryPoint;
+
+    private HnswIndex(int count, int dim, int m, int maxLevel, int entryPoint, FloatBuffer vectors,
+                      IntBuffer levels, IntBuffer upperOffsets, IntBuffer level0, IntBuffer upper) {
+        this.count = count;
+        this.dim = dim;
+        this.m = m;
+        this.maxLevel = maxLevel;
+        this.entryPoint = entryPoint;
+        this.vectors = vectors;
+        this.levels = levels;
+        this.upperOffsets = upperOffsets;
+        this.level0 = level0;
+        this.upper = upper;
+    }
+
+    /**
+     * 在堆上构建索引；seed 固定时构建结果可复现
+     */
+    public static HnswIndex build(float[][] data, int m, int efConstruction, long seed) {
+        int n = data.length;
+        int dim = n == 0 ? 0 : data[0].length;
+        FloatBuffer vectors = FloatBuffer.allocate(n * dim);
+        for (float[] v : data) {
+            if (v.length != dim) throw new IllegalArgumentException("向量维度不一致: " + v.length + " != " + dim);
+            vectors.put(normalize(v));
+        }
+
+        Random random = new Random(seed);
+        double levelFactor = 1 / Math.log(m);
+        int[] levels = new int[n];
+        int[] upperOffsets = new int[n];
+        int upperSize = 0;
+        for (int i = 0; i < n; i++) {
+            levels[i] = Math.min(MAX_LEVEL_CAP, (int) (-Math.log(1 - random.nextDouble()) * levelFactor));
+            upperOffsets[i] = upperSize;
+            upperSize += levels[i] * (m + 1);
+        }
+
+        HnswIndex index = new HnswIndex(n, dim, m, -1, -1, vectors, IntBuffer.wrap(levels), IntBuffer.wrap(upperOffsets),
+                IntBuffer.allocate(n * (2 * m + 1)), IntBuffer.allocate(upperSize));
+        for (int i = 0; i < n; i++) index.insert(i, efConstruction);
+        return index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int dimensions() {
+        return dim;
+    }
+
+    /**
+     * 取出第 node 个向量（归一化后的）
+     */
+    public float[] vector(int node) {
+        float[] v = new float[dim];
+        vectors.get(node * dim, v);
+        return v;
+    }
+
+    /**
+     * 近似检索 topK；filter 不为 null 时只返回满足条件的节点（遍历时仍会经过不满足的节点）
+     */
+    public List<Result> search(float[] query, int k, int ef, IntPredicate filter) {
+        if (count == 0 || k <= 0) return new ArrayList<>();
+        float[] q = normalize(query);
+        int ep = entryPoint;
+        for (int level = maxLevel; level > 0; level--) ep = greedyClosest(q, ep, level);
+        List<Result> found = searchLayer(q, List.of(ep), Math.max(ef, k), 0, filter);
+        return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+    }
+
+    /**
+     * 精确检索（全量点积），用于过滤条件很苛刻时兜底以及校验召回率
+     */
+    public List<Result> exactSearch(float[] query, int k, IntPredicate filter) {
+        float[] q = normalize(query);
+        PriorityQueue<Result> best = new PriorityQueue<>(Comparator.comparingDouble(Result::similarity));
+        for (int node = 0; node < count; node++) {
+            if (filter != null && !filter.test(node)) continue;
+            best.add(new Result(node, similarity(q, node)));
+            if (best.size() > k) best.poll();
+        }
+        List<Result> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Result::similarity).reversed());
+        return result;
+    }
+
+    // ------------------------------------------------------------------ 构建
+
+    private void insert(int node, int efConstruction) {
+        int nodeLevel = levels.get(node);
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = nodeLevel;
+            return;
+        }
+        float[] q = vector(node);
+        int ep = entryPoint;
+        for (int level = maxLevel; level > nodeLevel; level--) ep = greedyClosest(q, ep, level);
+
+        List<Integer> entryPoints = List.of(ep);
+        for (int level = Math.min(maxLevel, nodeLevel); level >= 0; level--) {
+            List<Result> candidates = searchLayer(q, entryPoints, efConstruction, level, null);
+            int[] selected = selectNeighbors(q, candidates, m);
+            setNeighbors(node, level, selected, selected.length);
+
+            int maxConn = level == 0 ? 2 * m : m;
+            for (int neighbor : selected) connect(neighbor, node, level, maxConn);
+
+            entryPoints = new ArrayList<>(candidates.size());
+            for (Result r : candidates) entryPoints.add(r.node());
+        }
+        if (nodeLevel > maxLevel) {
+            maxLevel = nodeLevel;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 把 node 加入 target 的邻接表；超出容量时用启发式重新挑选
+     */
+    private void connect(int target, int node, int level, int maxConn) {
+        int n = neighborCount(target, level);
+        if (n < maxConn) {
+            int slot = slot(target, level);
+            IntBuffer buf = level == 0 ? level0 : upper;
+            buf.put(slot + 1 + n, node);
+            buf.put(slot, n + 1);
+            return;
+        }
+        float[] t = vector(target);
+        List<Result> candidates = new ArrayList<>(n + 1);
+        for (int i = 0; i < n; i++) {
+            int other = neighbor(target, level, i);
+            candidates.add(new Result(other, similarity(t, other)));
+        }
+        candidates.add(new Result(node, similarity(t, node)));
+        candidates.sort(Comparator.comparingDouble(Result::similarity).reversed());
+        int[] selected = selectNeighbors(t, candidates, maxConn);
+        setNeighbors(target, level, selected, selected.length);
+    }
+
+    /**
+     * 邻居选择启发式（HNSW 论文算法 4）：候选按相似度从高到低，
+     * 只有当它与基点的相似度高于与已选邻居的相似度时才入选，使邻居分布在不同方向上；不足时用被剪掉的补齐
+     */
+    private int[] selectNeighbors(float[] base, List<Result> candidates, int max) {
+        List<Integer> selected = new ArrayList<>(max);
+        List<Integer> pruned = new ArrayList<>();
+        for (Result c : candidates) {
+            if (selected.size() >= max) break;
+            float[] cv = vector(c.node());
+            boolean diverse = true;
+            for (int s : selected) {
+                if (similarity(cv, s) > c.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) selected.add(c.node());
+            else pruned.add(c.node());
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) selected.add(pruned.get(i));
+
+        int[] result = new int[selected.size()];
+        for (int i = 0; i < result.length; i++) result[i] = selected.get(i);
+        return result;
+    }
+
+    private void setNeighbors(int node, int level, int[] neighbors, int n) {
+        int slot = slot(node, level);
+        IntBuffer buf = level == 0 ? level0 : upper;
+        buf.put(slot, n);
+        for (int i = 0; i < n; i++) buf.put(slot + 1 + i, neighbors[i]);
+    }
+
+    // ------------------------------------------------------------------ 检索
+
+    private int greedyClosest(float[] q, int ep, int level) {
+        int current = ep;
+        float best = similarity(q, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int n = neighborCount(current, level);
+            for (int i = 0; i < n; i++) {
+                int candidate = neighbor(current, level, i);
+                float sim = similarity(q, candidate);
+                if (sim > best) {
+                    best = sim;
+                    current = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层的 ef 宽度搜索，返回按相似度降序排列的结果
+     */
+    private List<Result> searchLayer(float[] q, List<Integer> entryPoints, int ef, int level, IntPredicate filter) {
+        BitSet visited = new BitSet(count);
+        PriorityQueue<Result> candidates = new PriorityQueue<>(Comparator.comparingDouble(Result::similarity).reversed());
+        PriorityQueue<Result> results = new PriorityQueue<>(Comparator.comparingDouble(Result::similarity));
+
+        for (int ep : entryPoints) {
+            if (visited.get(ep)) continue;
+            visited.set(ep);
+            Result r = new Result(ep, similarity(q, ep));
+            candidates.add(r);
+            if (filter == null || filter.test(ep)) results.add(r);
+        }
+        while (results.size() > ef) results.poll();
+
+        while (!candidates.isEmpty()) {
+            Result c = candidates.poll();
+            if (results.size() >= ef && c.similarity() < results.peek().similarity()) break;
+
+            int n = neighborCount(c.node(), level);
+            for (int i = 0; i < n; i++) {
+                int e = neighbor(c.node(), level, i);
+                if (visited.get(e)) continue;
+                visited.set(e);
+                float sim = similarity(q, e);
+                if (results.size() < ef || sim > results.peek().similarity()) {
+                    Result r = new Result(e, sim);
+                    candidates.add(r);
+                    if (filter == null || filter.test(e)) {
+                        results.add(r);
+                        if (results.size() > ef) results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Result> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Result::similarity).reversed());
+        return sorted;
+    }
+
+    // ------------------------------------------------------------------ 底层访问
+
+    private int slot(int node, int level) {
+        return level == 0 ? node * (2 * m + 1) : upperOffsets.get(node) + (level - 1) * (m + 1);
+    }
+
+    private int neighborCount(int node, int level) {
+        if (level > levels.get(node)) return 0;
+        return (level == 0 ? level0 : upper).get(slot(node, level));
+    }
+
+    private int neighbor(int node, int level, int i) {
+        return (level == 0 ? level0 : upper).get(slot(node, level) + 1 + i);
+    }
+
+    private float similarity(float[] q, int node) {
+        int base = node * dim;
+        float dot = 0;
+        for (int i = 0; i < dim; i++) dot += q[i] * vectors.get(base + i);
+        return dot;
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        float[] result = new float[v.length];
+        if (norm == 0) return result;
+        for (int i = 0; i < v.length; i++) result[i] = (float) (v[i] / norm);
+        return result;
+    }
+
+    // ------------------------------------------------------------------ 读写
+
+    /**
+     * 写出向量段与图段（各自先写临时文件再原子替换）
+     */
+    public void write(Path vectorFile, Path graphFile) throws IOException {
+        ByteBuffer vec = ByteBuffer.allocate(VECTOR_HEADER_INTS * 4 + count * dim * 4).order(ByteOrder.LITTLE_ENDIAN);
+        vec.putInt(VECTOR_MAGIC).putInt(VERSION).putInt(count).putInt(dim);
+        for (int i = 0; i < count * dim; i++) vec.putFloat(vectors.get(i));
+        vec.flip();
+        writeAtomically(vectorFile, vec);
+
+        int upperSize = upper.limit();
+        ByteBuffer graph = ByteBuffer.allocate(4 * (GRAPH_HEADER_INTS + 2 * count + level0.limit() + upperSize))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        graph.putInt(GRAPH_MAGIC).putInt(VERSION).putInt(count).putInt(m)
+                .putInt(maxLevel).putInt(entryPoint).putInt(upperSize).putInt(0);
+        for (IntBuffer section : List.of(levels, upperOffsets, level0, upper)) {
+            for (int i = 0; i < section.limit(); i++) graph.putInt(section.get(i));
+        }
+        graph.flip();
+        writeAtomically(graphFile, graph);
+    }
+
+    /**
+     * mmap 两个文件并直接在映射上检索，不做反序列化
+     */
+    public static HnswIndex load(Path vectorFile, Path graphFile) throws IOException {
+        ByteBuffer vec = map(vectorFile);
+        if (vec.limit() < VECTOR_HEADER_INTS * 4 || vec.getInt(0) != VECTOR_MAGIC || vec.getInt(4) != VERSION) {
+            throw new IOException("不是有效的向量段文件: " + vectorFile);
+        }
+        int count = vec.getInt(8);
+        int dim = vec.getInt(12);
+
+        ByteBuffer graph = map(graphFile);
+        if (graph.limit() < GRAPH_HEADER_INTS * 4 || graph.getInt(0) != GRAPH_MAGIC || graph.getInt(4) != VERSION) {
+            throw new IOException("不是有效的图段文件: " + graphFile);
+        }
+        if (graph.getInt(8) != count) {
+            throw new IOException("向量段与图段的节点数不一致: " + count + " != " + graph.getInt(8));
+        }
+        int m = graph.getInt(12);
+        int maxLevel = graph.getInt(16);
+        int entryPoint = graph.getInt(20);
+        int upperSize = graph.getInt(24);
+
+        long vectorBytes = VECTOR_HEADER_INTS * 4L + 4L * count * dim;
+        long graphBytes = 4L * (GRAPH_HEADER_INTS + 2L * count + (long) count * (2 * m + 1) + upperSize);
+        if (vec.limit() < vectorBytes || graph.limit() < graphBytes) throw new IOException("HNSW 索引文件已损坏（长度不足）");
+
+        FloatBuffer vectors = vec.slice(VECTOR_HEADER_INTS * 4, count * dim * 4).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        int pos = GRAPH_HEADER_INTS * 4;
+        IntBuffer levels = ints(graph, pos, count);
+        pos += count * 4;
+        IntBuffer upperOffsets = ints(graph, pos, count);
+        pos += count * 4;
+        IntBuffer level0 = ints(graph, pos, count * (2 * m + 1));
+        pos += count * (2 * m + 1) * 4;
+        IntBuffer upper = ints(graph, pos, upperSize);
+
+        return new HnswIndex(count, dim, m, maxLevel, entryPoint, vectors, levels, upperOffsets, level0, upper);
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static IntBuffer ints(ByteBuffer buf, int pos, int n) {
+        return buf.slice(pos, n * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private static void writeAtomically(Path target, ByteBuffer buf) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 检索结果：节点编号（即入库顺序）与余弦相似度
+     */
+    public record Result(int node, float similarity) {
+    }
+}
@@ -0,0 +1,407 @@
+package com.example.interviewer_controller.model;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 知识图谱的只读索引结构（加载时一次性构建）
+ * 1. 实体、关系、话题放进同一张去重字符串表，全部 intern 成 int 编号（实体占前 entityCount 个编号）
+ * 2. 三元组按原始顺序存成 int 数组，出边 / 入边各一套 CSR 邻接表
+ * 3. 实体名（小写）建立 1-gram / 2-gram 倒排，保留原先 contains() 的子串匹配语义
+ * 查询开销只与命中结果的规模相关，与图谱总规模无关。
+ * 所有数组都以 Buffer 形式持有：从 JSON 构建时是堆内数组，从快照加载时直接是 mmap 的文件区段。
+ * 字符串按需解码后缓存在堆上；构建 EntityMatcher / PhoneticCorrector 时遍历全部实体名走不缓存的解码，只有命中过的名字留在堆上。
+ */
+public final class KnowledgeGraph {
+
+    // 字符串表：stringOffsets[i] .. stringOffsets[i+1] 为第 i 个字符串的 UTF-8 字节区间
+    private final int stringCount;
+    private final int entityCount;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringBytes;
+    private final String[] decoded;          // 按需解码的缓存
+    private final String[] entityLower;      // 实体小写名缓存，用于子串校验
+
+    // 三元组（下标即三元组编号，保持 JSON 中的原始顺序），relations 指向字符串表
+    final IntBuffer heads;
+    final IntBuffer relations;
+    final IntBuffer tails;
+
+    // CSR 邻接：实体 e 的出边三元组为 outEdges[outOffsets[e] .. outOffsets[e+1])，入边同理
+    final IntBuffer outOffsets;
+    final IntBuffer outEdges;
+    final IntBuffer inOffsets;
+    final IntBuffer inEdges;
+
+    // n-gram 倒排：gramKeys 升序，gram 对应的实体为 gramPostings[gramOffsets[i] .. gramOffsets[i+1])
+    final LongBuffer gramKeys;
+    final IntBuffer gramOffsets;
+    final IntBuffer gramPostings;
+
+    // 去重后的话题（指向字符串表，-1 表示 null）
+    final IntBuffer topicIds;
+
+    // 对外暴露的只读视图
+    private final List<String> entityView;
+    private final List<String> topicView;
+
+    KnowledgeGraph(int stringCount, int entityCount, IntBuffer stringOffsets, ByteBuffer stringBytes,
+                   IntBuffer heads, IntBuffer relations, IntBuffer tails,
+                   IntBuffer outOffsets, IntBuffer outEdges, IntBuffer inOffsets, IntBuffer inEdges,
+                   LongBuffer gramKeys, IntBuffer gramOffsets, IntBuffer gramPostings, IntBuffer topicIds) {
+        this.stringCount = stringCount;
+        this.entityCount = entityCount;
+        this.stringOffsets = stringOffsets;
+        this.stringBytes = stringBytes;
+        this.decoded = new String[stringCount];
+        this.entityLower = new String[entityCount];
+        this.heads = heads;
+        this.relations = relations;
+        this.tails = tails;
+        this.outOffsets = outOffsets;
+        this.outEdges = outEdges;
+        this.inOffsets = inOffsets;
+        this.inEdges = inEdges;
+        this.gramKeys = gramKeys;
+        this.gramOffsets = gramOffsets;
+        this.gramPostings = gramPostings;
+        this.topicIds = topicIds;
+
+        this.entityView = new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return string(Objects.checkIndex(index, entityCount));
+            }
+
+            @Override
+            public int size() {
+                return entityCount;
+            }
+        };
+        this.topicView = new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                int id = topicIds.get(index);
+                return id < 0 ? null : string(id);
+            }
+
+            @Override
+            public int size() {
+                return topicIds.limit();
+            }
+        };
+    }
+
+    /**
+     * 从原始三元组列表构建索引（堆内）
+     */
+    public static KnowledgeGraph build(List<Triplet> triplets) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        // 缺少 head 或 tail 的三元组没法参与邻居跳转，直接跳过
+        List<Triplet> valid = new ArrayList<>(triplets.size());
+        for (Triplet t : triplets) {
+            if (t.getHead() != null && t.getTail() != null) valid.add(t);
+        }
+
+        // 第一遍只收实体，保证实体编号连续地排在字符串表最前面
+        int[] h = new int[valid.size()];
+        int[] tl = new int[valid.size()];
+        for (int i = 0; i < valid.size(); i++) {
+            h[i] = intern(valid.get(i).getHead().trim(), ids, strings);
+            tl[i] = intern(valid.get(i).getTail().trim(), ids, strings);
+        }
+        int entityCount = strings.size();
+
+        int[] r = new int[valid.size()];
+        for (int i = 0; i < valid.size(); i++) {
+            String relation = valid.get(i).getRelation();
+            r[i] = intern(relation == null ? "" : relation, ids, strings);
+        }
+
+        // 话题沿用原逻辑：覆盖所有三元组，按首次出现顺序去重
+        Set<String> distinctTopics = new LinkedHashSet<>();
+        for (Triplet t : triplets) distinctTopics.add(t.getSource_topic());
+        int[] topics = new int[distinctTopics.size()];
+        int ti = 0;
+        for (String topic : distinctTopics) topics[ti++] = topic == null ? -1 : intern(topic, ids, strings);
+
+        // 字符串表编码成 UTF-8 连续区段
+        int[] offsets = new int[strings.size() + 1];
+        byte[][] encoded = new byte[strings.size()][];
+        for (int i = 0; i < strings.size(); i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+        byte[] blob = new byte[offsets[strings.size()]];
+        for (int i = 0; i < encoded.length; i++) System.arraycopy(encoded[i], 0, blob, offsets[i], encoded[i].length);
+
+        int[] outOffsets = new int[entityCount + 1];
+        int[] outEdges = new int[h.length];
+        buildCsr(h, outOffsets, outEdges);
+        int[] inOffsets = new int[entityCount + 1];
+        int[] inEdges = new int[tl.length];
+        buildCsr(tl, inOffsets, inEdges);
+
+        // 统计每个 gram 的实体集合（同一实体内重复出现的 gram 只记一次）
+        TreeMap<Long, List<Integer>> grams = new TreeMap<>();
+        for (int e = 0; e < entityCount; e++) {
+            String s = strings.get(e).toLowerCase(Locale.ROOT);
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i < s.length(); i++) {
+                seen.add(unigram(s.charAt(i)));
+                if (i + 1 < s.length()) seen.add(bigram(s.charAt(i), s.charAt(i + 1)));
+            }
+            for (Long g : seen) grams.computeIfAbsent(g, k -> new ArrayList<>()).add(e);
+        }
+        long[] gramKeys = new long[grams.size()];
+        int[] gramOffsets = new int[grams.size() + 1];
+        int total = 0;
+        for (List<Integer> p : grams.values()) total += p.size();
+        int[] gramPostings = new int[total];
+        int gi = 0, pos = 0;
+        for (Map.Entry<Long, List<Integer>> entry : grams.entrySet()) {
+            gramKeys[gi] = entry.getKey();
+            gramOffsets[gi] = pos;
+            for (int e : entry.getValue()) gramPostings[pos++] = e;
+            gi++;
+        }
+        gramOffsets[gi] = pos;
+
+        KnowledgeGraph graph = new KnowledgeGraph(strings.size(), entityCount,
+                IntBuffer.wrap(offsets), ByteBuffer.wrap(blob),
+                IntBuffer.wrap(h), IntBuffer.wrap(r), IntBuffer.wrap(tl),
+                IntBuffer.wrap(outOffsets), IntBuffer.wrap(outEdges), IntBuffer.wrap(inOffsets), IntBuffer.wrap(inEdges),
+                LongBuffer.wrap(gramKeys), IntBuffer.wrap(gramOffsets), IntBuffer.wrap(gramPostings), IntBuffer.wrap(topics));
+        // 堆内构建时字符串本来就在手上，直接填满缓存
+        for (int i = 0; i < strings.size(); i++) graph.decoded[i] = strings.get(i);
+        return graph;
+    }
+
+    public int tripletCount() {
+        return heads.limit();
+    }
+
+    public int entityCount() {
+        return entityCount;
+    }
+
+    int stringCount() {
+        return stringCount;
+    }
+
+    IntBuffer stringOffsets() {
+        return stringOffsets;
+    }
+
+    ByteBuffer stringBytes() {
+        return stringBytes;
+    }
+
+    public List<String> entities() {
+        return entityView;
+    }
+
+    public List<String> topics() {
+        return topicView;
+    }
+
+    public String entityName(int entityId) {
+        return string(Objects.checkIndex(entityId, entityCount));
+    }
+
+    /**
+     * 按编号解码实体名但不写入缓存，供一次性遍历全部实体的场景使用（已缓存的直接复用）
+     */
+    String decodeEntityName(int entityId) {
+        int id = Objects.checkIndex(entityId, entityCount);
+        String s = decoded[id];
+        return s != null ? s : decode(id);
+    }
+
+    /**
+     * 实体名的只读视图，取值走 {@link #decodeEntityName}，不会把遍历过的名字留在堆上
+     */
+    List<String> uncachedEntities() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return decodeEntityName(index);
+            }
+
+            @Override
+            public int size() {
+                return entityCount;
+            }
+        };
+    }
+
+    /**
+     * 实体的度（出边 + 入边），用于实体识别时的排序
+     */
+    public int degree(int entityId) {
+        return outOffsets.get(entityId + 1) - outOffsets.get(entityId)
+                + inOffsets.get(entityId + 1) - inOffsets.get(entityId);
+    }
+
+    /**
+     * 双向邻居：与原实现一致，按三元组原始顺序遍历命中的边，head 命中返回 tail，否则返回 head，去重
+     */
+    public List<String> neighbors(String entity) {
+        int[] matched = matchEntities(entity);
+        if (matched.length == 0) return new ArrayList<>();
+
+        int[] edges = collectEdges(matched, Integer.MAX_VALUE);
+        LinkedHashSet<String> result = new LinkedHashSet<>();
+        for (int t : edges) {
+            int head = heads.get(t);
+            int other = Arrays.binarySearch(matched, head) >= 0 ? tails.get(t) : head;
+            result.add(string(other));
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * 命中实体的前 limit 条三元组（按原始顺序）
+     */
+    public List<String> facts(String entity, int limit) {
+        int[] matched = matchEntities(entity);
+        if (matched.length == 0) return new ArrayList<>();
+
+        int[] edges = collectEdges(matched, limit);
+        List<String> result = new ArrayList<>(edges.length);
+        for (int t : edges) {
+            result.add(String.format("[%s] --(%s)--> [%s]",
+                    string(heads.get(t)), string(relations.get(t)), string(tails.get(t))));
+        }
+        return result;
+    }
+
+    /**
+     * 子串匹配：返回小写名中包含 key 的所有实体编号（升序）
+     * 先用 key 中最稀有的 gram 取候选集，再逐个做 contains 校验
+     */
+    int[] matchEntities(String entity) {
+        if (entity == null) return new int[0];
+        String key = entity.toLowerCase(Locale.ROOT).trim();
+        if (key.isEmpty()) return new int[0];
+
+        int best = -1;
+        int bestSize = Integer.MAX_VALUE;
+        if (key.length() == 1) {
+            best = findGram(unigram(key.charAt(0)));
+            if (best < 0) return new int[0];
+        } else {
+            for (int i = 0; i + 1 < key.length(); i++) {
+                int g = findGram(bigram(key.charAt(i), key.charAt(i + 1)));
+                if (g < 0) return new int[0];   // 任一 2-gram 不存在，必然没有实体包含 key
+                int size = gramOffsets.get(g + 1) - gramOffsets.get(g);
+                if (size < bestSize) {
+                    best = g;
+                    bestSize = size;
+                }
+            }
+        }
+
+        int from = gramOffsets.get(best);
+        int to = gramOffsets.get(best + 1);
+        int[] out = new int[to - from];
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int e = gramPostings.get(i);
+            if (key.length() <= 2 || lower(e).contains(key)) out[n++] = e;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * 合并命中实体的出边、入边，按三元组编号升序去重，最多保留 limit 条
+     */
+    private int[] collectEdges(int[] matched, int limit) {
+        int size = 0;
+        for (int e : matched) size += degree(e);
+        int[] edges = new int[size];
+        int n = 0;
+        for (int e : matched) {
+            for (int i = outOffsets.get(e); i < outOffsets.get(e + 1); i++) edges[n++] = outEdges.get(i);
+            for (int i = inOffsets.get(e); i < inOffsets.get(e + 1); i++) edges[n++] = inEdges.get(i);
+        }
+        Arrays.sort(edges);
+
+        int m = 0;
+        for (int i = 0; i < n && m < limit; i++) {
+            if (m == 0 || edges[m - 1] != edges[i]) edges[m++] = edges[i];
+        }
+        return Arrays.copyOf(edges, m);
+    }
+
+    private int findGram(long gram) {
+        int lo = 0, hi = gramKeys.limit() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = gramKeys.get(mid);
+            if (k < gram) lo = mid + 1;
+            else if (k > gram) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * 按编号取字符串；mmap 加载时首次访问才解码，之后走缓存（String 不可变，并发下重复解码也无害）
+     */
+    private String string(int id) {
+        String s = decoded[id];
+        if (s == null) {
+            s = decode(id);
+            decoded[id] = s;
+        }
+        return s;
+    }
+
+    private String decode(int id) {
+        int from = stringOffsets.get(id);
+        byte[] bytes = new byte[stringOffsets.get(id + 1) - from];
+        stringBytes.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String lower(int entityId) {
+        String s = entityLower[entityId];
+        if (s == null) {
+            s = string(entityId).toLowerCase(Locale.ROOT);
+            entityLower[entityId] = s;
+        }
+        return s;
+    }
+
+    private static void buildCsr(int[] endpoint, int[] offsets, int[] edges) {
+        for (int e : endpoint) offsets[e + 1]++;
+        for (int i = 1; i < offsets.length; i++) offsets[i] += offsets[i - 1];
+        int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+        // 三元组编号递增写入，保证每个实体的边列表天然有序
+        for (int t = 0; t < endpoint.length; t++) edges[cursor[endpoint[t]]++] = t;
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<String> table) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = table.size();
+            ids.put(value, id);
+            table.add(value);
+        }
+        return id;
+    }
+
+    private static long unigram(char c) {
+        return (1L << 32) | c;
+    }
+
+    private static long bigram(char a, char b) {
+        return ((long) a << 16) | b;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.interviewer_controller.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 知识图谱二进制快照（.kgs）的读写
+ * 文件布局（小端序）：
+ *   头部 10 个 int：magic、version、stringCount、entityCount、tripletCount、gramCount、postingCount、topicCount、stringByteCount、保留
+ *   gramKeys long[gramCount]
+ *   stringOffsets[stringCount+1]、heads/relations/tails[tripletCount]
+ *   outOffsets[entityCount+1]、outEdges[tripletCount]、inOffsets[entityCount+1]、inEdges[tripletCount]
+ *   gramOffsets[gramCount+1]、gramPostings[postingCount]、topicIds[topicCount]
+ *   字符串表 UTF-8 字节
+ * 各区段长度都可以由头部计数推出，加载时直接 mmap 后切片，不做任何反序列化。
+ *
+ * 构建快照：java -cp ... com.example.interviewer_controller.model.KnowledgeGraphSnapshot [输入 json] [输出 kgs]
+ */
+public final class KnowledgeGraphSnapshot {
+
+    private static final int MAGIC = 0x3153474B; // "KGS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 10;
+
+    private KnowledgeGraphSnapshot() {
+    }
+
+    /**
+     * 把图谱写成快照文件（先写临时文件再原子替换，正在 mmap 旧文件的进程不受影响）
+     */
+    public static void write(KnowledgeGraph graph, Path target) throws IOException {
+        int g = graph.gramKeys.limit();
+        long size = (long) HEADER_INTS * 4 + (long) g * 8
+                + 4L * (graph.stringOffsets().limit() + 3L * graph.tripletCount()
+                + graph.outOffsets.limit() + graph.outEdges.limit() + graph.inOffsets.limit() + graph.inEdges.limit()
+                + graph.gramOffsets.limit() + graph.gramPostings.limit() + graph.topicIds.limit())
+                + graph.stringBytes().limit();
+        if (size > Integer.MAX_VALUE) throw new IOException("图谱快照超过 2GB，无法写入: " + size);
+
+        ByteBuffer buf = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION)
+                .putInt(graph.stringCount()).putInt(graph.entityCount()).putInt(graph.tripletCount())
+                .putInt(g).putInt(graph.gramPostings.limit()).putInt(graph.topicIds.limit())
+                .putInt(graph.stringBytes().limit()).putInt(0);
+        for (int i = 0; i < g; i++) buf.putLong(graph.gramKeys.get(i));
+        for (IntBuffer section : List.of(graph.stringOffsets(), graph.heads, graph.relations, graph.tails,
+                graph.outOffsets, graph.outEdges, graph.inOffsets, graph.inEdges,
+                graph.gramOffsets, graph.gramPostings, graph.topicIds)) {
+            for (int i = 0; i < section.limit(); i++) buf.putInt(section.get(i));
+        }
+        ByteBuffer bytes = graph.stringBytes();
+        for (int i = 0; i < bytes.limit(); i++) buf.put(bytes.get(i));
+        buf.flip();
+
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * mmap 快照文件并切出各个区段；映射在通道关闭后依然有效，数据常驻页缓存而不是堆
+     */
+    public static KnowledgeGraph load(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        ByteBuffer buf = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.limit() < HEADER_INTS * 4 || buf.getInt(0) != MAGIC) {
+            throw new IOException("不是有效的图谱快照文件: " + file);
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("图谱快照版本不匹配: " + buf.getInt(4) + "，请重新生成 " + file);
+        }
+        int stringCount = buf.getInt(8);
+        int entityCount = buf.getInt(12);
+        int tripletCount = buf.getInt(16);
+        int gramCount = buf.getInt(20);
+        int postingCount = buf.getInt(24);
+        int topicCount = buf.getInt(28);
+        int stringByteCount = buf.getInt(32);
+
+        Slicer s = new Slicer(buf, HEADER_INTS * 4);
+        LongBuffer gramKeys = s.longs(gramCount);
+        IntBuffer stringOffsets = s.ints(stringCount + 1);
+        IntBuffer heads = s.ints(tripletCount);
+        IntBuffer relations = s.ints(tripletCount);
+        IntBuffer tails = s.ints(tripletCount);
+        IntBuffer outOffsets = s.ints(entityCount + 1);
+        IntBuffer outEdges = s.ints(tripletCount);
+        IntBuffer inOffsets = s.ints(entityCount + 1);
+        IntBuffer inEdges = s.ints(tripletCount);
+        IntBuffer gramOffsets = s.ints(gramCount + 1);
+        IntBuffer gramPostings = s.ints(postingCount);
+        IntBuffer topicIds = s.ints(topicCount);
+        ByteBuffer stringBytes = s.bytes(stringByteCount);
+
+        return new KnowledgeGraph(stringCount, entityCount, stringOffsets, stringBytes,
+                heads, relations, tails, outOffsets, outEdges, inOffsets, inEdges,
+                gramKeys, gramOffsets, gramPostings, topicIds);
+    }
+
+    /**
+     * 构建期转换工具：knowledge_graph.json -> knowledge_graph.kgs
+     */
+    public static void main(String[] args) throws Exception {
+        String input = args.length > 0 ? args[0] : "../../data_engineering/kg_data/knowledge_graph.json";
+        String output = args.length > 1 ? args[1] : input.replaceFirst("\\.json$", "") + ".kgs";
+
+        long start = System.nanoTime();
+        List<Triplet> triplets = new ObjectMapper().readValue(new File(input), new TypeReference<List<Triplet>>(){});
+        KnowledgeGraph graph = KnowledgeGraph.build(triplets);
+        write(graph, Paths.get(output));
+        System.out.printf("【图谱快照】%s -> %s：%d 条关系，%d 个实体，%d 字节，耗时 %d ms%n",
+                input, output, graph.tripletCount(), graph.entityCount(), Files.size(Paths.get(output)),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 顺序切片辅助类
+     */
+    private static final class Slicer {
+        private final ByteBuffer buf;
+        private int pos;
+
+        Slicer(ByteBuffer buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        LongBuffer longs(int n) throws IOException {
+            return bytes(n * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+
+        IntBuffer ints(int n) throws IOException {
+            return bytes(n * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+
+        ByteBuffer bytes(int n) throws IOException {
+            if (n < 0 || pos + n > buf.limit()) throw new IOException("图谱快照文件已损坏（区段越界）");
+            ByteBuffer slice = buf.slice(pos, n);
+            pos += n;
+            return slice;
+        }
+    }
+}
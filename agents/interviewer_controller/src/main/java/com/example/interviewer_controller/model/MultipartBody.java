@@ -0,0 +1,57 @@
+package com.example.interviewer_controller.model;
+
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 流式 multipart/form-data 请求体（JDK HttpClient 用）
+ * 文件部分直接从输入流边读边发，不在堆上拼出整个请求体；
+ * 各部分长度都已知时带上 Content-Length，否则退化为 chunked 传输。
+ */
+public final class MultipartBody {
+
+    private final String boundary = "----interviewer-" + UUID.randomUUID().toString().replace("-", "");
+    private final List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+
+    public MultipartBody field(String name, String value) {
+        parts.add(HttpRequest.BodyPublishers.ofByteArray(bytes(
+                "--" + boundary + "\r\n"
+                        + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                        + value + "\r\n")));
+        return this;
+    }
+
+    /**
+     * @param size    文件字节数，未知时传 -1
+     * @param content 每次调用返回一个新的输入流（请求重发时会再次调用）
+     */
+    public MultipartBody file(String name, String filename, String contentType, long size, Supplier<InputStream> content) {
+        parts.add(HttpRequest.BodyPublishers.ofByteArray(bytes(
+                "--" + boundary + "\r\n"
+                        + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + filename + "\"\r\n"
+                        + "Content-Type: " + contentType + "\r\n\r\n")));
+        HttpRequest.BodyPublisher stream = HttpRequest.BodyPublishers.ofInputStream(content);
+        parts.add(size > 0 ? HttpRequest.BodyPublishers.fromPublisher(stream, size) : stream);
+        parts.add(HttpRequest.BodyPublishers.ofByteArray(bytes("\r\n")));
+        return this;
+    }
+
+    public String contentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    public HttpRequest.BodyPublisher publisher() {
+        List<HttpRequest.BodyPublisher> all = new ArrayList<>(parts);
+        all.add(HttpRequest.BodyPublishers.ofByteArray(bytes("--" + boundary + "--\r\n")));
+        return HttpRequest.BodyPublishers.concat(all.toArray(new HttpRequest.BodyPublisher[0]));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.interviewer_controller.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把边录边传的 PCM 音频（16 位小端、单声道）切成滚动窗口，每个窗口可以单独送去识别
+ * 1. 缓冲凑满 windowMs 就切出一个窗口
+ * 2. 切点不落在固定位置：在窗口末尾 searchMs 范围内找能量最低的 20ms 帧，从那里切，尽量不把一个字切成两半
+ * 3. 录音结束时 flush 取出剩余部分，它的长度不超过一个窗口，也就是松手后还需要等待识别的音频
+ * 非线程安全，每段录音新建一个。
+ */
+public final class PcmWindower {
+
+    private static final int BYTES_PER_SAMPLE = 2;
+    private static final int FRAME_MS = 20;
+
+    private final int sampleRate;
+    private final int windowBytes;
+    private final int searchBytes;
+    private final int frameBytes;
+
+    private byte[] buffer;
+    private int length;
+
+    public PcmWindower(int sampleRate, int windowMs, int searchMs) {
+        this.sampleRate = sampleRate;
+        this.frameBytes = bytesFor(sampleRate, FRAME_MS);
+        this.windowBytes = Math.max(frameBytes, bytesFor(sampleRate, windowMs));
+        this.searchBytes = Math.min(windowBytes - frameBytes, bytesFor(sampleRate, searchMs));
+        this.buffer = new byte[windowBytes + windowBytes / 2];
+    }
+
+    /**
+     * 追加一段 PCM，返回因此凑齐的窗口（可能为空）
+     */
+    public List<byte[]> push(byte[] pcm) {
+        if (length + pcm.length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + pcm.length));
+        }
+        System.arraycopy(pcm, 0, buffer, length, pcm.length);
+        length += pcm.length;
+
+        List<byte[]> windows = new ArrayList<>();
+        while (length >= windowBytes) {
+            int cut = quietestCut();
+            windows.add(Arrays.copyOf(buffer, cut));
+            System.arraycopy(buffer, cut, buffer, 0, length - cut);
+            length -= cut;
+        }
+        return windows;
+    }
+
+    /**
+     * 取出剩余不足一个窗口的音频
+     */
+    public byte[] flush() {
+        byte[] rest = Arrays.copyOf(buffer, length);
+        length = 0;
+        return rest;
+    }
+
+    /**
+     * 已缓冲、尚未切出的音频时长（毫秒）
+     */
+    public long bufferedMs() {
+        return length / BYTES_PER_SAMPLE * 1000L / sampleRate;
+    }
+
+    private int quietestCut() {
+        int from = windowBytes - searchBytes;
+        int best = windowBytes;
+        long bestEnergy = Long.MAX_VALUE;
+        for (int start = from; start + frameBytes <= windowBytes; start += frameBytes) {
+            long energy = 0;
+            for (int i = start; i < start + frameBytes; i += BYTES_PER_SAMPLE) {
+                short sample = (short) ((buffer[i] & 0xff) | (buffer[i + 1] << 8));
+                energy += Math.abs(sample);
+            }
+            if (energy < bestEnergy) {
+                bestEnergy = energy;
+                best = start + frameBytes / 2;
+            }
+        }
+        return best - best % BYTES_PER_SAMPLE;
+    }
+
+    private static int bytesFor(int sampleRate, int ms) {
+        return (int) ((long) sampleRate * ms / 1000) * BYTES_PER_SAMPLE;
+    }
+
+    /**
+     * 给裸 PCM 加上 44 字节的 WAV 头，识别引擎按文件格式读取
+     */
+    public static byte[] toWav(byte[] pcm, int sampleRate) {
+        ByteBuffer wav = ByteBuffer.allocate(44 + pcm.length).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(36 + pcm.length).put("WAVE".getBytes());
+        wav.put("fmt ".getBytes()).putInt(16)
+                .putShort((short) 1)                              // PCM
+                .putShort((short) 1)                              // 单声道
+                .putInt(sampleRate)
+                .putInt(sampleRate * BYTES_PER_SAMPLE)            // 每秒字节数
+                .putShort((short) BYTES_PER_SAMPLE)
+                .putShort((short) 16);
+        wav.put("data".getBytes()).putInt(pcm.length).put(pcm);
+        return wav.array();
+    }
+}
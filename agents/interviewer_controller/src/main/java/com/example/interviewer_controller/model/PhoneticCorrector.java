@@ -0,0 +1,510 @@
+package com.example.interviewer_controller.model;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.*;
+
+/**
+ * 基于读音的本地术语纠错（词表为图谱中的全部实体），在大模型纠错之前先跑一遍：
+ * 1. 读音键：汉字转无声调拼音，英文字母转小写，再折叠平翘舌与前后鼻音（zh/ch/sh -> z/c/s，ng -> n）
+ *    和连续重复的字母，"猪Keeper"（zukeper）与 "ZooKeeper"（zokeper）只差一个易混字母
+ * 2. 英文片段（可带前面紧挨着的 1~2 个汉字，如 "猪Keeper"）在读音键上做模糊匹配：
+ *    BK 树按加权编辑距离检索，识别中常混淆的字母（b/v、p/b、d/t、m/n、l/r 等）替换只算半个错误
+ * 3. 连续汉字片段（3 字以上）读音键与某个实体完全相同时按同音字替换，如 "幂等姓" -> "幂等性"
+ * 4. 只有两种情况直接替换：读音键与实体完全相同，或与唯一最近的实体只差易混字母的替换
+ *    （且是大写缩写或读音键 5 个字母以上，"text" 不会被改成 "Test"）。其余近似匹配
+ *    （"Spring" 与 "String"、"code" 与 "Node" 这类普通替换），以及图谱里找不到的大写缩写（"JBM"），
+ *    都标记为 uncertain，由调用方交给大模型处理。已经是实体原文的片段不动。
+ * 构建后只读，可多线程共享。
+ */
+public final class PhoneticCorrector {
+
+    // 少于 2 个字符的实体不参与纠错
+    private static final int MIN_ENTITY_LENGTH = 2;
+    // 汉字同音替换的最短片段：两个字的同音词太多（事物/事务），误改的代价高于收益
+    private static final int MIN_CJK_WINDOW = 3;
+    private static final int MAX_CJK_WINDOW = 8;
+    private static final int SHORT_KEY_LENGTH = 3;
+    // 只差易混字母时，小写单词的读音键至少要这么长才直接替换，更短的常用词（text/test）误改代价太高
+    private static final int MIN_CONFUSABLE_KEY_LENGTH = 5;
+
+    private static final HanyuPinyinOutputFormat PINYIN_FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        PINYIN_FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        PINYIN_FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        PINYIN_FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    // 识别中容易互相混淆的字母，替换代价减半
+    private static final String[] CONFUSABLE = {"bv", "bp", "dt", "gk", "mn", "lr", "fh", "sx", "cz", "jz", "ie", "ou"};
+    private static final boolean[][] CONFUSABLE_TABLE = new boolean[128][128];
+
+    static {
+        for (String pair : CONFUSABLE) {
+            CONFUSABLE_TABLE[pair.charAt(0)][pair.charAt(1)] = true;
+            CONFUSABLE_TABLE[pair.charAt(1)][pair.charAt(0)] = true;
+        }
+    }
+
+    /**
+     * 一处替换；cost 为加权编辑距离（半个错误为 1）
+     */
+    public record Correction(String from, String to, int cost) {
+    }
+
+    /**
+     * @param text        纠错后的文本
+     * @param uncertain   存在本地无法确定的可疑片段，建议交给大模型
+     * @param suspects    可疑片段原文
+     */
+    public record Result(String text, List<Correction> corrections, boolean uncertain, List<String> suspects) {
+    }
+
+    // 词表，实体按下标引用，命中时才取名字（来自图谱时是不缓存解码的视图，名字不常驻堆上）
+    private final List<String> entities;
+    // 折叠后的实体原文（去掉空格），用于判断片段本身已经正确
+    private final PackedStrings surfaces = new PackedStrings();
+    // 读音键，下标同时是 BK 树的节点编号（0 为根）
+    private final PackedStrings keys = new PackedStrings();
+    // 读音键对应的实体下标（多个实体读音相同时记为歧义，值为 -1）
+    private final int[] keyEntity;
+    // BK 树：节点 k 的子节点串成链表（firstChild / nextSibling），edge[k] 为节点 k 与父节点的距离
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] edge;
+
+    public PhoneticCorrector(KnowledgeGraph graph) {
+        this(graph.uncachedEntities());
+    }
+
+    public PhoneticCorrector(List<String> entities) {
+        this.entities = entities;
+        int[] owner = new int[16];
+        int[] first = new int[16];
+        int[] next = new int[16];
+        int[] dist = new int[16];
+        for (int e = 0; e < entities.size(); e++) {
+            String entity = entities.get(e);
+            String folded = EntityMatcher.fold(entity).trim();
+            if (folded.length() < MIN_ENTITY_LENGTH) continue;
+            surfaces.add(folded.replace(" ", ""));
+            String key = phoneticKey(entity);
+            if (key.length() < MIN_ENTITY_LENGTH) continue;
+            int k = keys.indexOf(key);
+            if (k >= 0) {
+                int existing = owner[k];
+                if (existing >= 0 && !EntityMatcher.fold(entities.get(existing)).equals(folded)) owner[k] = -1;
+                continue;
+            }
+            k = keys.add(key);
+            if (k == owner.length) {
+                owner = Arrays.copyOf(owner, k * 2);
+                first = Arrays.copyOf(first, k * 2);
+                next = Arrays.copyOf(next, k * 2);
+                dist = Arrays.copyOf(dist, k * 2);
+            }
+            owner[k] = e;
+            first[k] = -1;
+            next[k] = -1;
+            // 从根往下找距离相同的子节点，找不到就挂在当前节点下（读音键已去重，距离不会为 0）
+            for (int node = 0; k > 0; ) {
+                int d = distance(key, keys, node);
+                int child = first[node];
+                while (child >= 0 && dist[child] != d) child = next[child];
+                if (child < 0) {
+                    dist[k] = d;
+                    next[k] = first[node];
+                    first[node] = k;
+                    break;
+                }
+                node = child;
+            }
+        }
+        surfaces.trim();
+        keys.trim();
+        this.keyEntity = Arrays.copyOf(owner, keys.size());
+        this.firstChild = Arrays.copyOf(first, keys.size());
+        this.nextSibling = Arrays.copyOf(next, keys.size());
+        this.edge = Arrays.copyOf(dist, keys.size());
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * 纠正文本中读音接近实体、但写法不对的片段
+     */
+    public Result correct(String text) {
+        if (text == null || text.isEmpty() || keys.size() == 0) return new Result(text, List.of(), false, List.of());
+        String folded = EntityMatcher.fold(text);
+        String[] sounds = new String[text.length()];
+        for (int i = 0; i < text.length(); i++) sounds[i] = sound(folded.charAt(i));
+
+        List<Match> matches = new ArrayList<>();
+        List<String> suspects = new ArrayList<>();
+        boolean[] locked = new boolean[text.length()];
+
+        // 1. 英文片段：单词或相邻两个单词，可带前面紧挨着的 1~2 个汉字
+        List<int[]> words = asciiWords(folded);
+        for (int w = 0; w < words.size(); w++) {
+            Match best = null;
+            boolean exact = false;
+            for (int span = 1; span <= 2 && w - span + 1 >= 0; span++) {
+                int start = words.get(w - span + 1)[0];
+                int end = words.get(w)[1];
+                if (span == 2 && !onlySpacesBetween(folded, words.get(w - 1)[1], words.get(w)[0])) continue;
+                for (int prefix = 0; prefix <= 2; prefix++) {
+                    int s = start - prefix;
+                    if (s < 0 || (prefix > 0 && !isCjk(folded.charAt(s)))) break;
+                    String surface = folded.substring(s, end).replace(" ", "");
+                    if (surfaces.indexOf(surface) >= 0) {
+                        exact = true;
+                        lock(locked, s, end);
+                        continue;
+                    }
+                    Match m = lookup(text, sounds, s, end);
+                    if (m != null && (best == null || m.betterThan(best))) best = m;
+                }
+            }
+            if (exact) continue;
+            if (best == null) {
+                // 图谱里找不到的大写缩写多半是识别错的术语（JBM），本地没把握，交给大模型
+                int[] word = words.get(w);
+                if (word[1] - word[0] >= 2 && isUpperAcronym(text, word[0], word[1])) suspects.add(text.substring(word[0], word[1]));
+                continue;
+            }
+            if (best.confident()) matches.add(best);
+            else suspects.add(text.substring(best.start(), best.end()));
+        }
+
+        // 2. 连续汉字片段：同音替换，长片段优先
+        for (int len = MAX_CJK_WINDOW; len >= MIN_CJK_WINDOW; len--) {
+            for (int s = 0; s + len <= text.length(); s++) {
+                if (!allCjk(folded, s, s + len) || anyLocked(locked, s, s + len)) continue;
+                String surface = folded.substring(s, s + len);
+                if (surfaces.indexOf(surface) >= 0) {
+                    lock(locked, s, s + len);
+                    continue;
+                }
+                String entity = entity(keys.indexOf(key(sounds, s, s + len)));
+                if (entity != null) {
+                    matches.add(new Match(s, s + len, entity, 0, 1, true));
+                    lock(locked, s, s + len);
+                }
+            }
+        }
+
+        // 3. 按位置拼出结果，重叠的替换只保留先出现的
+        matches.sort(Comparator.comparingInt(Match::start));
+        StringBuilder out = new StringBuilder();
+        List<Correction> corrections = new ArrayList<>();
+        int pos = 0;
+        for (Match m : matches) {
+            if (m.start() < pos) continue;
+            out.append(text, pos, m.start()).append(m.entity());
+            corrections.add(new Correction(text.substring(m.start(), m.end()), m.entity(), m.cost()));
+            pos = m.end();
+        }
+        out.append(text.substring(pos));
+        return new Result(out.toString(), corrections, !suspects.isEmpty(), suspects);
+    }
+
+    /**
+     * 片段 [start, end) 的最佳候选；没有落在可疑范围内的候选时返回 null
+     */
+    private Match lookup(String text, String[] sounds, int start, int end) {
+        String key = key(sounds, start, end);
+        if (key.length() < MIN_ENTITY_LENGTH) return null;
+        // 三个字母以内的片段只看大写缩写（JBM），否则 and、the 之类的常用词都会被改掉
+        if (key.length() <= SHORT_KEY_LENGTH && !isUpperAcronym(text, start, end)) return null;
+        int k = keys.indexOf(key);
+        if (k >= 0) {
+            String entity = entity(k);
+            return new Match(start, end, entity, 0, key.length(), entity != null);
+        }
+        // 可疑范围：约三分之一的字符出错；可信只限于少量易混字母的替换（每个算半个错误）
+        int loose = key.length() * 2 / 3;
+        int confident = Math.max(1, key.length() / 4);
+        List<Integer> found = new ArrayList<>();
+        int bestCost = search(key, loose, found);
+        if (found.isEmpty()) return null;
+        // 多个读音键并列最近时无法确定
+        String entity = found.size() == 1 ? entity(found.get(0)) : null;
+        boolean sure = entity != null && bestCost <= confident && confusableOnly(key, keys.get(found.get(0)))
+                && (key.length() >= MIN_CONFUSABLE_KEY_LENGTH || isUpperAcronym(text, start, end));
+        return new Match(start, end, entity, bestCost, key.length(), sure);
+    }
+
+    private record Match(int start, int end, String entity, int cost, int keyLength, boolean confident) {
+        boolean betterThan(Match other) {
+            if (confident != other.confident) return confident;
+            // 按每个字符的平均代价比较，长片段在代价相同时优先
+            long lhs = (long) cost * other.keyLength;
+            long rhs = (long) other.cost * keyLength;
+            return lhs != rhs ? lhs < rhs : end - start > other.end - other.start;
+        }
+    }
+
+    /**
+     * 读音键 k 对应的实体名；键不存在或有歧义时返回 null
+     */
+    private String entity(int k) {
+        return k < 0 || keyEntity[k] < 0 ? null : entities.get(keyEntity[k]);
+    }
+
+    /**
+     * 在 BK 树上收集距离不超过 max 的读音键中距离最小的那些（下标），返回最小距离；利用三角不等式剪枝
+     */
+    private int search(String query, int max, List<Integer> best) {
+        int bestCost = Integer.MAX_VALUE;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int d = distance(query, keys, node);
+            if (d <= max) {
+                if (d < bestCost) {
+                    bestCost = d;
+                    best.clear();
+                }
+                if (d == bestCost) best.add(node);
+            }
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                if (Math.abs(edge[child] - d) > max) continue;
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = child;
+            }
+        }
+        return bestCost;
+    }
+
+    /**
+     * 紧凑的字符串集合：全部字符首尾相接存进一个 char[]，开放寻址的哈希表里只存下标，不为每个字符串建对象
+     */
+    private static final class PackedStrings {
+        private char[] chars = new char[64];
+        private int[] offsets = new int[17];     // 第 i 个字符串为 chars[offsets[i] .. offsets[i+1])
+        private int[] slots = emptySlots(16);    // 下标，-1 表示空槽；装载率不超过 1/2
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        String get(int i) {
+            return new String(chars, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+
+        /**
+         * 字符串的下标，不存在时返回 -1
+         */
+        int indexOf(String s) {
+            int mask = slots.length - 1;
+            for (int slot = spread(s.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+                int i = slots[slot];
+                if (i < 0 || matches(i, s)) return i;
+            }
+        }
+
+        /**
+         * 加入字符串并返回下标，已存在时返回原下标
+         */
+        int add(String s) {
+            int i = indexOf(s);
+            if (i >= 0) return i;
+            if (2 * (size + 1) > slots.length) rehash(slots.length * 2);
+            int from = offsets[size];
+            if (from + s.length() > chars.length) chars = Arrays.copyOf(chars, Math.max(chars.length * 2, from + s.length()));
+            if (size + 2 > offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            s.getChars(0, s.length(), chars, from);
+            offsets[size + 1] = from + s.length();
+            place(size);
+            return size++;
+        }
+
+        /**
+         * 构建完成后收掉多余的容量
+         */
+        void trim() {
+            chars = Arrays.copyOf(chars, offsets[size]);
+            offsets = Arrays.copyOf(offsets, size + 1);
+        }
+
+        private boolean matches(int i, String s) {
+            int from = offsets[i];
+            if (offsets[i + 1] - from != s.length()) return false;
+            for (int j = 0; j < s.length(); j++) {
+                if (chars[from + j] != s.charAt(j)) return false;
+            }
+            return true;
+        }
+
+        private void rehash(int capacity) {
+            slots = emptySlots(capacity);
+            for (int i = 0; i < size; i++) place(i);
+        }
+
+        private void place(int i) {
+            // 与 String.hashCode() 相同的算法，查询时可以直接用字符串缓存的哈希值
+            int h = 0;
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) h = 31 * h + chars[j];
+            int mask = slots.length - 1;
+            int slot = spread(h) & mask;
+            while (slots[slot] >= 0) slot = (slot + 1) & mask;
+            slots[slot] = i;
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        private static int[] emptySlots(int capacity) {
+            int[] slots = new int[capacity];
+            Arrays.fill(slots, -1);
+            return slots;
+        }
+    }
+
+    /**
+     * 加权编辑距离（以半个错误为单位）：插入/删除/普通替换为 2，混淆字母替换为 1
+     * 各操作代价构成度量，满足三角不等式，可以用于 BK 树
+     */
+    static int distance(String a, String b) {
+        return distance(a, b.toCharArray(), 0, b.length());
+    }
+
+    private static int distance(String a, PackedStrings table, int i) {
+        return distance(a, table.chars, table.offsets[i], table.offsets[i + 1]);
+    }
+
+    /**
+     * a 与 b[from, to) 的加权编辑距离
+     */
+    private static int distance(String a, char[] b, int from, int to) {
+        int length = to - from;
+        int[] prev = new int[length + 1];
+        int[] cur = new int[length + 1];
+        for (int j = 0; j <= length; j++) prev[j] = 2 * j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = 2 * i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= length; j++) {
+                char cb = b[from + j - 1];
+                int sub = ca == cb ? 0 : (ca < 128 && cb < 128 && CONFUSABLE_TABLE[ca][cb] ? 1 : 2);
+                cur[j] = Math.min(prev[j - 1] + sub, Math.min(prev[j], cur[j - 1]) + 2);
+            }
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[length];
+    }
+
+    /**
+     * 两个等长读音键的差异是否全部是易混字母的替换（没有插入删除，也没有普通替换）
+     */
+    static boolean confusableOnly(String a, String b) {
+        if (a.length() != b.length()) return false;
+        for (int i = 0; i < a.length(); i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb && !(ca < 128 && cb < 128 && CONFUSABLE_TABLE[ca][cb])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 读音键：汉字转拼音，英文与数字保留（小写），其余字符忽略，再折叠易混的声母、韵尾与重复字母
+     */
+    public static String phoneticKey(String text) {
+        String folded = EntityMatcher.fold(text);
+        String[] sounds = new String[folded.length()];
+        for (int i = 0; i < folded.length(); i++) sounds[i] = sound(folded.charAt(i));
+        return key(sounds, 0, sounds.length);
+    }
+
+    private static String key(String[] sounds, int start, int end) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            if (sounds[i] != null) sb.append(sounds[i]);
+        }
+        String key = sb.toString().replace("zh", "z").replace("ch", "c").replace("sh", "s").replace("ng", "n");
+        // 连续重复的字母读音上没有区别（keeper/keper、Kafka/Kaffka）
+        StringBuilder collapsed = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            if (i == 0 || key.charAt(i) != key.charAt(i - 1)) collapsed.append(key.charAt(i));
+        }
+        return collapsed.toString();
+    }
+
+    private static String sound(char c) {
+        if (c < 128) return Character.isLetterOrDigit(c) ? String.valueOf(c) : null;
+        if (!isCjk(c)) return null;
+        try {
+            String[] pinyin = PinyinHelper.toHanyuPinyinStringArray(c, PINYIN_FORMAT);
+            // 多音字取第一个读音
+            return pinyin == null || pinyin.length == 0 ? null : pinyin[0];
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<int[]> asciiWords(String s) {
+        List<int[]> words = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            if (isAsciiWordChar(s.charAt(i))) {
+                int start = i;
+                while (i < s.length() && isAsciiWordChar(s.charAt(i))) i++;
+                // 纯数字不参与纠错
+                if (!s.substring(start, i).chars().allMatch(Character::isDigit)) words.add(new int[]{start, i});
+            } else {
+                i++;
+            }
+        }
+        return words;
+    }
+
+    private static boolean onlySpacesBetween(String s, int from, int to) {
+        for (int i = from; i < to; i++) if (s.charAt(i) != ' ') return false;
+        return to - from <= 1;
+    }
+
+    private static boolean allCjk(String s, int from, int to) {
+        for (int i = from; i < to; i++) if (!isCjk(s.charAt(i))) return false;
+        return true;
+    }
+
+    private static boolean anyLocked(boolean[] locked, int from, int to) {
+        for (int i = from; i < to; i++) if (locked[i]) return true;
+        return false;
+    }
+
+    private static void lock(boolean[] locked, int from, int to) {
+        Arrays.fill(locked, from, to, true);
+    }
+
+    private static boolean isUpperAcronym(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= 128 || Character.isLowerCase(c)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAsciiWordChar(char c) {
+        return c < 128 && Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
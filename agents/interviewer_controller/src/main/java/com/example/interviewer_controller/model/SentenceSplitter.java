@@ -0,0 +1,87 @@
+package com.example.interviewer_controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量断句器：模型逐段输出的文本喂进来，凑满一句就吐出一句，供 TTS 逐句合成
+ * 1. 句末标点：中文 。！？；… 和英文 ! ? ; 以及换行
+ * 2. 英文句点只有后面跟空白时才算句末，避免把 "3.14"、"Spring.AI" 切开
+ * 3. 太短的句子（如 "好。"）并入下一句，减少 TTS 调用次数；太长的句子在逗号处提前切开，保证首句尽快出声
+ * 非线程安全，每轮回复新建一个。
+ */
+public final class SentenceSplitter {
+
+    private static final int MIN_SENTENCE_LENGTH = 4;
+    private static final int MAX_SENTENCE_LENGTH = 80;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int scanned = 0;
+    private int lastComma = -1;
+
+    /**
+     * 追加一段文本，返回因此凑齐的完整句子（可能为空）
+     */
+    public List<String> push(String text) {
+        List<String> sentences = new ArrayList<>();
+        if (text == null || text.isEmpty()) return sentences;
+        buffer.append(text);
+
+        int start = 0;
+        for (int i = scanned; i < buffer.length(); i++) {
+            char c = buffer.charAt(i);
+            int end = -1;
+            if (isTerminal(c)) {
+                end = i + 1;
+            } else if (c == '.') {
+                // 句点要看下一个字符，下一个字符还没到就等下一段
+                if (i + 1 >= buffer.length()) {
+                    scanned = i;
+                    return drain(sentences, start);
+                }
+                if (Character.isWhitespace(buffer.charAt(i + 1))) end = i + 1;
+            } else if (c == '，' || c == ',' || c == '、') {
+                lastComma = i;
+            }
+
+            if (end < 0 && i - start + 1 >= MAX_SENTENCE_LENGTH && lastComma >= start) {
+                end = lastComma + 1;
+            }
+            if (end > 0) {
+                String sentence = buffer.substring(start, end).trim();
+                if (sentence.length() >= MIN_SENTENCE_LENGTH) {
+                    sentences.add(sentence);
+                    start = end;
+                }
+                lastComma = -1;
+            }
+        }
+        scanned = buffer.length();
+        return drain(sentences, start);
+    }
+
+    /**
+     * 输出结束时取出剩余文本（可能为空串）
+     */
+    public String flush() {
+        String rest = buffer.toString().trim();
+        buffer.setLength(0);
+        scanned = 0;
+        lastComma = -1;
+        return rest;
+    }
+
+    private List<String> drain(List<String> sentences, int consumed) {
+        if (consumed > 0) {
+            buffer.delete(0, consumed);
+            scanned -= consumed;
+            lastComma = lastComma >= consumed ? lastComma - consumed : -1;
+        }
+        return sentences;
+    }
+
+    private static boolean isTerminal(char c) {
+        return c == '。' || c == '！' || c == '？' || c == '；' || c == '…'
+                || c == '!' || c == '?' || c == ';' || c == '\n';
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.interviewer_controller.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合成音频的短期缓冲区：接口只返回音频地址，前端再通过 GET /api/audio/{audioId} 拉取二进制
+ * 1. 每段音频只在堆上保留一份 byte[]，不再 Base64 编码进 JSON
+ * 2. 超过 TTL 或总字节数超过上限时，按写入顺序淘汰最早的音频
+ */
+@Service
+public class AudioStore {
+
+    private final long ttlMillis;
+    private final long maxBytes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // 写入顺序，用于按时间淘汰
+    private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public AudioStore(@Value("${audio.store.ttl-seconds:120}") long ttlSeconds,
+                      @Value("${audio.store.max-bytes:67108864}") long maxBytes) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 存入一段音频，返回其 id
+     */
+    public String put(byte[] audio) {
+        String id = UUID.randomUUID().toString().replace("-", "");
+        entries.put(id, new Entry(audio, System.currentTimeMillis() + ttlMillis));
+        order.add(id);
+        totalBytes.addAndGet(audio.length);
+        evict();
+        return id;
+    }
+
+    /**
+     * 取出音频；不存在或已过期返回 null（音频可以被重复读取，例如浏览器的分段请求）
+     */
+    public byte[] get(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) return null;
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            remove(id);
+            return null;
+        }
+        return entry.audio();
+    }
+
+    public Map<String, Object> getStatus() {
+        return Map.of("entries", entries.size(), "bytes", totalBytes.get(), "maxBytes", maxBytes);
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<String> it = order.iterator();
+        while (it.hasNext()) {
+            String id = it.next();
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt() >= now && totalBytes.get() <= maxBytes) break;
+            it.remove();
+            remove(id);
+        }
+    }
+
+    private void remove(String id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) totalBytes.addAndGet(-removed.audio().length);
+    }
+
+    private record Entry(byte[] audio, long expiresAt) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.interviewer_controller.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 支持批量预取的 EmbeddingModel 包装：
+ * VectorStore 的 similaritySearch 每次只会对一条查询单独调用 embed(String)，
+ * 多路检索时先用 prefetch 一次远程调用批量算好所有查询的向量，随后各路检索在 withPrefetched 内直接取用，不再逐条请求。
+ * 预取结果只属于发起它的那次多路检索（由调用方持有并传给各路检索线程），并发的其他会话看不到、也清不掉。
+ */
+public class BatchingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+
+    // 当前线程正在执行的检索可以取用的预取向量
+    private final ThreadLocal<Map<String, float[]>> scope = new ThreadLocal<>();
+
+    public BatchingEmbeddingModel(EmbeddingModel delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 一次批量调用算出所有查询的向量（重复文本只请求一次），返回值交给 withPrefetched 使用，随调用方一起释放
+     */
+    public Map<String, float[]> prefetch(Collection<String> texts) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(texts));
+        if (distinct.isEmpty()) return Map.of();
+
+        List<float[]> vectors = delegate.embed(distinct);
+        Map<String, float[]> prefetched = new HashMap<>();
+        for (int i = 0; i < distinct.size(); i++) prefetched.put(distinct.get(i), vectors.get(i));
+        return prefetched;
+    }
+
+    /**
+     * 在当前线程执行检索，期间 embed(String) 优先取 prefetched 中的向量
+     */
+    public <T> T withPrefetched(Map<String, float[]> prefetched, Supplier<T> search) {
+        Map<String, float[]> outer = scope.get();
+        scope.set(prefetched);
+        try {
+            return search.get();
+        } finally {
+            if (outer == null) scope.remove();
+            else scope.set(outer);
+        }
+    }
+
+    @Override
+    public float[] embed(String text) {
+        Map<String, float[]> prefetched = scope.get();
+        float[] vector = prefetched == null ? null : prefetched.get(text);
+        return vector != null ? vector : delegate.embed(text);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return delegate.embed(texts);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
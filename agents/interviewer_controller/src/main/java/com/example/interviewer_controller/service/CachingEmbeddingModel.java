@@ -0,0 +1,203 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带缓存的 EmbeddingModel 包装：检索关键词基本都是图谱实体名和大纲关键词，跨会话反复出现，
+ * 命中缓存时省掉一次远程 Embedding 调用
+ * 1. 向量以 float[] 保存，按条数做 LRU 淘汰
+ * 2. 可选持久化到本地文件，重启后直接加载；文件头记录模型名，换模型后旧缓存自动作废
+ * 3. 命中/未命中/淘汰次数注册为 Micrometer 指标（embedding.cache.*）
+ * 只缓存查询向量（embed(String) / embed(List)），文档入库走 embed(Document)，不做缓存。
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final int FILE_MAGIC = 0x31434245; // "EBC1"
+
+    private final EmbeddingModel delegate;
+    private final String modelName;
+    private final int maxEntries;
+    private final Path persistPath;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // accessOrder = true 的 LinkedHashMap 即 LRU，所有访问都在 synchronized (cache) 内
+    private final LinkedHashMap<String, float[]> cache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, String modelName, int maxEntries, Path persistPath) {
+        this.delegate = delegate;
+        this.modelName = modelName;
+        this.maxEntries = maxEntries;
+        this.persistPath = persistPath;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                if (size() <= CachingEmbeddingModel.this.maxEntries) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+        load();
+    }
+
+    public void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("embedding.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("embedding.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("embedding.cache.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("embedding.cache.size", this, CachingEmbeddingModel::size).register(registry);
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        return Map.of("size", size(), "maxEntries", maxEntries, "hits", h, "misses", m,
+                "evictions", evictions.get(), "hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return embed(List.of(text)).get(0);
+    }
+
+    /**
+     * 先查缓存，未命中的文本合并成一次批量请求
+     */
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        float[][] result = new float[texts.size()][];
+        Set<String> distinctMissing = new LinkedHashSet<>();
+        synchronized (cache) {
+            for (int i = 0; i < texts.size(); i++) {
+                result[i] = cache.get(texts.get(i));
+                if (result[i] == null) distinctMissing.add(texts.get(i));
+            }
+        }
+        List<String> missing = new ArrayList<>(distinctMissing);
+        hits.addAndGet(texts.size() - countNulls(result));
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            List<float[]> vectors = delegate.embed(missing);
+            Map<String, float[]> fetched = new HashMap<>();
+            synchronized (cache) {
+                for (int i = 0; i < missing.size(); i++) {
+                    cache.put(missing.get(i), vectors.get(i));
+                    fetched.put(missing.get(i), vectors.get(i));
+                }
+            }
+            for (int i = 0; i < result.length; i++) {
+                if (result[i] == null) result[i] = fetched.get(texts.get(i));
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 把缓存写到本地文件（先写临时文件再原子替换）；未配置路径时什么也不做
+     */
+    public void persist() {
+        if (persistPath == null) return;
+        List<Map.Entry<String, float[]>> entries;
+        synchronized (cache) {
+            entries = new ArrayList<>(cache.entrySet());
+        }
+        try {
+            Path parent = persistPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, persistPath.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeUTF(modelName);
+                out.writeInt(entries.size());
+                // 按 LRU 顺序写出（最久未用的在前），加载后顺序不变
+                for (Map.Entry<String, float[]> e : entries) {
+                    byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(key.length);
+                    out.write(key);
+                    float[] v = e.getValue();
+                    out.writeInt(v.length);
+                    for (float f : v) out.writeFloat(f);
+                }
+            }
+            Files.move(tmp, persistPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("embedding.cache.persist entries={} path={}", entries.size(), persistPath);
+        } catch (IOException e) {
+            log.warn("embedding.cache.persist.failed path={} error={}", persistPath, e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (persistPath == null || !Files.exists(persistPath)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(persistPath)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                log.warn("embedding.cache.load.skipped reason=bad_magic path={}", persistPath);
+                return;
+            }
+            String fileModel = in.readUTF();
+            if (!fileModel.equals(modelName)) {
+                log.info("embedding.cache.load.skipped reason=model_changed from={} to={}", fileModel, modelName);
+                return;
+            }
+            int count = in.readInt();
+            synchronized (cache) {
+                for (int i = 0; i < count; i++) {
+                    byte[] key = new byte[in.readInt()];
+                    in.readFully(key);
+                    float[] v = new float[in.readInt()];
+                    for (int j = 0; j < v.length; j++) v[j] = in.readFloat();
+                    cache.put(new String(key, StandardCharsets.UTF_8), v);
+                }
+                // 加载时超出上限导致的淘汰不计入指标
+                evictions.set(0);
+            }
+            log.info("embedding.cache.load entries={} path={}", size(), persistPath);
+        } catch (IOException e) {
+            // 从空缓存开始
+            log.warn("embedding.cache.load.failed path={} error={}", persistPath, e.getMessage());
+        }
+    }
+
+    private static int countNulls(float[][] arr) {
+        int n = 0;
+        for (float[] v : arr) if (v == null) n++;
+        return n;
+    }
+}
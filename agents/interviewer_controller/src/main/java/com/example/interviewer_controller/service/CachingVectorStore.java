@@ -0,0 +1,154 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 相似度搜索结果的共享缓存（包在真实 VectorStore 外层）：
+ * 同一个关键词对所有候选人的检索结果都一样，缓存后多数检索只是一次哈希查找
+ * 1. 缓存键为 (query, topK, 相似度阈值, 过滤条件)，按 TTL 过期、按条数 LRU 淘汰
+ * 2. 同一个键的并发未命中只发起一次真实检索，其余请求等待同一个结果；
+ *    这次检索失败（包括发起它的会话被中断）时，失败只抛给发起者，等待者重新竞争、由其中一个再检索一次
+ * 3. add / delete 修改集合后整体失效
+ * 缓存的是"全局"结果，每个会话的已问过滤由调用方在取到结果后自行处理。
+ */
+public class CachingVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // accessOrder = true 即 LRU；值是进行中或已完成的检索，所有访问都在 synchronized (cache) 内
+    private final LinkedHashMap<SearchKey, CacheEntry> cache;
+
+    public CachingVectorStore(VectorStore delegate, long ttlSeconds, int maxEntries) {
+        this.delegate = delegate;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchKey, CacheEntry> eldest) {
+                return size() > CachingVectorStore.this.maxEntries;
+            }
+        };
+    }
+
+    public void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("vectorstore.search.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("vectorstore.search.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("vectorstore.search.cache.invalidations", invalidations, AtomicLong::get).register(registry);
+        Gauge.builder("vectorstore.search.cache.size", this, CachingVectorStore::size).register(registry);
+    }
+
+    public VectorStore getDelegate() {
+        return delegate;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * 该请求当前是否有未过期的缓存（含正在进行的检索）
+     */
+    public boolean isCached(SearchRequest request) {
+        SearchKey key = SearchKey.of(request);
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            return entry != null && !entry.isExpired();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        SearchKey key = SearchKey.of(request);
+        while (true) {
+            CacheEntry entry;
+            boolean owner = false;
+            synchronized (cache) {
+                entry = cache.get(key);
+                if (entry == null || entry.isExpired()) {
+                    entry = new CacheEntry(new CompletableFuture<>(), System.currentTimeMillis() + ttlMillis);
+                    cache.put(key, entry);
+                    owner = true;
+                }
+            }
+
+            if (!owner) {
+                // 结果为 null 表示发起者失败，重新竞争
+                List<Document> result = entry.result().join();
+                if (result != null) {
+                    hits.incrementAndGet();
+                    return result;
+                }
+                continue;
+            }
+
+            misses.incrementAndGet();
+            List<Document> result = null;
+            try {
+                List<Document> docs = delegate.similaritySearch(request);
+                result = docs == null ? List.of() : List.copyOf(docs);
+                return result;
+            } finally {
+                // 无论成功、异常还是 Error 都要完成 future，否则等待者永远阻塞；失败的检索不缓存
+                if (result == null) {
+                    synchronized (cache) {
+                        cache.remove(key, entry);
+                    }
+                }
+                entry.result().complete(result);
+            }
+        }
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+        invalidate();
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> idList) {
+        Optional<Boolean> result = delegate.delete(idList);
+        invalidate();
+        return result;
+    }
+
+    /**
+     * 集合内容变化后清空全部缓存（正在进行的检索完成后也不会再写回）
+     */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    private record SearchKey(String query, int topK, double threshold, String filter) {
+        static SearchKey of(SearchRequest request) {
+            return new SearchKey(request.getQuery(), request.getTopK(), request.getSimilarityThreshold(),
+                    request.hasFilterExpression() ? request.getFilterExpression().toString() : null);
+        }
+    }
+
+    private record CacheEntry(CompletableFuture<List<Document>> result, long expiresAt) {
+        boolean isExpired() {
+            return expiresAt < System.currentTimeMillis();
+        }
+    }
+}
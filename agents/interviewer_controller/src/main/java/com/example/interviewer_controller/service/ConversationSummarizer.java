@@ -0,0 +1,63 @@
+package com.example.interviewer_controller.service;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 用本地模型把较早的面试对话折叠进摘要（SessionChatMemory 在后台调用）
+ * 这里的 ChatClient 不挂记忆 Advisor，摘要请求本身不会写回对话记忆
+ */
+@Service
+public class ConversationSummarizer implements SessionChatMemory.Summarizer {
+
+    private final ChatClient chatClient;
+    private final LlmScheduler llmScheduler;
+
+    @Value("${chat.memory.summary.model:qwen3:8b}")
+    private String modelName;
+
+    public ConversationSummarizer(ChatClient.Builder builder, LlmScheduler llmScheduler, TokenUsageAdvisor tokenUsageAdvisor) {
+        this.chatClient = builder.defaultAdvisors(tokenUsageAdvisor).build();
+        this.llmScheduler = llmScheduler;
+    }
+
+    @Override
+    public String summarize(String previousSummary, List<Message> folded) {
+        StringBuilder dialogue = new StringBuilder();
+        for (Message m : folded) {
+            String role = m.getMessageType() == MessageType.USER ? "面试者"
+                    : m.getMessageType() == MessageType.ASSISTANT ? "面试官" : "系统";
+            dialogue.append(role).append("：").append(m.getContent()).append("\n");
+        }
+
+        String prompt = """
+        你负责为一场技术面试维护过程摘要，供面试官后续追问和最终评分使用。
+        请把[新增对话]合并进[已有摘要]，输出更新后的完整摘要。
+
+        要求：
+        1. 按考察过的技术点逐条记录：问了什么、面试者答到了哪些要点、遗漏或答错了什么。
+        2. 保留对最终评分有用的信息（表达是否清晰、是否需要提示才答出），删去寒暄和重复内容。
+        3. 只输出摘要正文，不超过 400 字。
+
+        [已有摘要]：
+        {previous}
+
+        [新增对话]：
+        {dialogue}
+        """;
+
+        // 摘要不在任何人的等待路径上，排在最低优先级
+        return llmScheduler.call(LlmScheduler.Priority.BACKGROUND, () -> chatClient.prompt()
+                .user(u -> u.text(prompt)
+                        .param("previous", previousSummary.isEmpty() ? "（无）" : previousSummary)
+                        .param("dialogue", dialogue.toString()))
+                .options(OllamaOptions.builder().withModel(modelName).build())
+                .call().content());
+    }
+}
@@ -1,42 +1,254 @@
 package com.example.interviewer_controller.service;
 
+import com.example.interviewer_controller.model.EntityMatcher;
+import com.example.interviewer_controller.model.KnowledgeGraph;
+import com.example.interviewer_controller.model.KnowledgeGraphSnapshot;
+import com.example.interviewer_controller.model.PhoneticCorrector;
 import com.example.interviewer_controller.model.Triplet;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
+@Slf4j
 @Service
 public class GraphKnowledgeService {
 
-    // 存储所有的原始三元组
-    private List<Triplet> allTriplets;
+    // 当前生效的图谱快照（索引 + 实体匹配器），热更新时整体原子替换，读方无需加锁
+    private final AtomicReference<GraphState> state = new AtomicReference<>();
 
-    // 缓存所有去重后的实体名词（包括 Head 和 Tail）
-    private List<String> allEntities;
+    // 后台重建线程：同一时间只跑一个重建任务，重复请求复用同一个 Future
+    private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "kg-reload");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile CompletableFuture<Map<String, Object>> pendingReload;
+
+    private volatile Thread watcherThread;
+
+    // 本服务自己写出的快照文件的修改时间：监听线程据此忽略这次写入引起的文件事件，避免 JSON 变化后连续加载两次
+    private volatile FileTime ownSnapshotTime;
+
+    // 二进制快照路径（由 KnowledgeGraphSnapshot 从 JSON 转换生成），存在时优先 mmap 加载
+    @Value("${kg.snapshot.path}")
+    private String snapshotPath;
+
+    // 原始 JSON 路径，快照不存在或比 JSON 旧时回退解析
+    @Value("${kg.json.path}")
+    private String jsonPath;
+
+    // 是否监听图谱文件变化自动热更新
+    @Value("${kg.watch.enabled:false}")
+    private boolean watchEnabled;
 
     @PostConstruct
     public void init() throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        // 加载知识图谱 JSON 文件
-        this.allTriplets = mapper.readValue(
-                new File("E:/Code/LLM_Base_and_Application/RAG/knowledge_graph.json"),
-                new TypeReference<List<Triplet>>(){}
-        );
-
-        // 提取所有不重复的实体（Head 和 Tail 都要，因为任何名词都可能被面试者提到）
-        Set<String> entitySet = new HashSet<>();
-        for (Triplet t : allTriplets) {
-            if (t.getHead() != null) entitySet.add(t.getHead().trim());
-            if (t.getTail() != null) entitySet.add(t.getTail().trim());
+        Map<String, Object> report = swapIn(loadState());
+        log.info("graph.init {}", report);
+        if (watchEnabled) startWatcher();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread watcher = watcherThread;
+        if (watcher != null) watcher.interrupt();
+        reloadExecutor.shutdownNow();
+    }
+
+    /**
+     * 在后台重建图谱并原子替换。正在执行 findNeighbors 等查询的调用方继续使用旧快照，不会被阻塞，
+     * 也不会看到构建到一半的图谱；旧快照在最后一个读者结束后由 GC 回收（mmap 随之释放）。
+     * 返回的报告包含耗时、规模以及内存开销。
+     */
+    public synchronized CompletableFuture<Map<String, Object>> reload() {
+        if (pendingReload != null && !pendingReload.isDone()) return pendingReload;
+        pendingReload = CompletableFuture.supplyAsync(() -> {
+            try {
+                Map<String, Object> report = swapIn(loadState());
+                log.info("graph.reload {}", report);
+                return report;
+            } catch (Exception e) {
+                // 继续使用旧图谱
+                log.error("graph.reload.failed error={}", e.getMessage());
+                throw new CompletionException(e);
+            }
+        }, reloadExecutor);
+        return pendingReload;
+    }
+
+    /**
+     * 当前生效图谱的概况
+     */
+    public Map<String, Object> getStatus() {
+        GraphState current = state.get();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("source", current.source());
+        status.put("loadedAt", current.loadedAt().toString());
+        status.put("triplets", current.graph().tripletCount());
+        status.put("entities", current.graph().entityCount());
+        status.put("reloading", pendingReload != null && !pendingReload.isDone());
+        return status;
+    }
+
+    /**
+     * 直接换上一份内存中构建好的图谱（不读文件），供 JMH 基准装入真实或合成的图谱
+     */
+    Map<String, Object> use(KnowledgeGraph graph, String source) {
+        long start = System.nanoTime();
+        long heapBefore = usedHeap();
+        GraphState loaded = new GraphState(graph, new EntityMatcher(graph), new PhoneticCorrector(graph),
+                source, Instant.now());
+        long matcherHeap = usedHeap() - heapBefore;
+        return swapIn(new LoadResult(loaded, (System.nanoTime() - start) / 1_000_000, matcherHeap, matcherHeap, 0));
+    }
+
+    private Map<String, Object> swapIn(LoadResult loaded) {
+        GraphState previous = state.getAndSet(loaded.state());
+        KnowledgeGraph graph = loaded.state().graph();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("source", loaded.state().source());
+        report.put("triplets", graph.tripletCount());
+        report.put("entities", graph.entityCount());
+        report.put("matcherPatterns", loaded.state().entityMatcher().patternCount());
+        report.put("correctorTerms", loaded.state().corrector().size());
+        report.put("elapsedMs", loaded.elapsedMs());
+        // 堆增量是构建前后 used heap 的差值，仅作参考（期间可能发生 GC）。
+        // mmap 加载时图谱本身几乎不占堆，增量主要来自实体匹配器和纠错器：自动机、读音键和 BK 树都是基本类型数组，
+        // 随实体数线性增长；实体名只按编号引用，不常驻堆上（真实图谱约 6 千实体时合计约 1.3 MB，40 万实体时约 72 MB）
+        report.put("heapDeltaBytes", loaded.heapDeltaBytes());
+        report.put("matcherHeapDeltaBytes", loaded.matcherHeapDeltaBytes());
+        report.put("mappedBytes", loaded.mappedBytes());
+        if (previous != null) {
+            report.put("previousTriplets", previous.graph().tripletCount());
+            report.put("previousEntities", previous.graph().entityCount());
+        }
+        return report;
+    }
+
+    /**
+     * 构建一份新的图谱快照：快照文件比 JSON 新时直接 mmap，否则解析 JSON 重建并顺手刷新快照文件
+     */
+    private LoadResult loadState() throws Exception {
+        long start = System.nanoTime();
+        long heapBefore = usedHeap();
+        Path snapshot = Paths.get(snapshotPath);
+        Path json = Paths.get(jsonPath);
+
+        boolean snapshotFresh = Files.exists(snapshot) && (!Files.exists(json)
+                || Files.getLastModifiedTime(json).compareTo(Files.getLastModifiedTime(snapshot)) <= 0);
+
+        KnowledgeGraph graph;
+        String source;
+        long mappedBytes = 0;
+        if (snapshotFresh) {
+            // 快照直接 mmap，三元组和索引都留在堆外（实体匹配器与纠错器除外，见下方）
+            graph = KnowledgeGraphSnapshot.load(snapshot);
+            source = snapshot.toString();
+            mappedBytes = Files.size(snapshot);
+        } else {
+            log.info("graph.snapshot.stale snapshot={} json={}", snapshot, json);
+            List<Triplet> triplets = new ObjectMapper().readValue(json.toFile(), new TypeReference<List<Triplet>>(){});
+            // 一次性建好索引，之后的查询不再全量扫描三元组
+            graph = KnowledgeGraph.build(triplets);
+            source = json.toString();
+            try {
+                KnowledgeGraphSnapshot.write(graph, snapshot);
+                ownSnapshotTime = Files.getLastModifiedTime(snapshot);
+            } catch (Exception e) {
+                // 不影响本次加载
+                log.warn("graph.snapshot.write.failed snapshot={} error={}", snapshot, e.getMessage());
+            }
+        }
+        long matcherHeapBefore = usedHeap();
+        GraphState loaded = new GraphState(graph, new EntityMatcher(graph), new PhoneticCorrector(graph),
+                source, Instant.now());
+        long heapAfter = usedHeap();
+        return new LoadResult(loaded, (System.nanoTime() - start) / 1_000_000, heapAfter - heapBefore,
+                heapAfter - matcherHeapBefore, mappedBytes);
+    }
+
+    /**
+     * 监听图谱文件所在目录，JSON 或快照文件变化后防抖 1 秒再触发热更新。
+     * 只有快照变化、且快照正是上次加载时由本服务写出的那一份时不再重复加载
+     */
+    private void startWatcher() throws IOException {
+        Path json = Paths.get(jsonPath).toAbsolutePath();
+        Path snapshot = Paths.get(snapshotPath).toAbsolutePath();
+        Set<Path> dirs = new HashSet<>(List.of(json.getParent(), snapshot.getParent()));
+        Set<Path> targets = Set.of(json, snapshot);
+
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        for (Path dir : dirs) dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread watcher = new Thread(() -> {
+            try (watchService) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Set<Path> changed = new HashSet<>();
+                    collectChanges(watchService.take(), targets, changed);
+                    if (changed.isEmpty()) continue;
+                    // 生成脚本通常分多次写文件，等写完再加载
+                    Thread.sleep(1000);
+                    for (WatchKey k; (k = watchService.poll()) != null; ) collectChanges(k, targets, changed);
+                    if (changed.equals(Set.of(snapshot)) && isOwnSnapshot(snapshot)) {
+                        log.debug("graph.watch.skip reason=own_snapshot snapshot={}", snapshot);
+                        continue;
+                    }
+                    reload();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.error("graph.watch.failed error={}", e.getMessage());
+            }
+        }, "kg-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        this.watcherThread = watcher;
+        log.info("graph.watch targets={}", targets);
+    }
+
+    private static void collectChanges(WatchKey key, Set<Path> targets, Set<Path> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path name) {
+                Path path = ((Path) key.watchable()).resolve(name);
+                if (targets.contains(path)) changed.add(path);
+            }
+        }
+        key.reset();
+    }
+
+    private boolean isOwnSnapshot(Path snapshot) {
+        try {
+            return Files.getLastModifiedTime(snapshot).equals(ownSnapshotTime);
+        } catch (IOException e) {
+            return false;
         }
-        this.allEntities = new ArrayList<>(entitySet);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private record GraphState(KnowledgeGraph graph, EntityMatcher entityMatcher, PhoneticCorrector corrector,
+                              String source, Instant loadedAt) {
+    }
 
-        System.out.println("【图谱初始化完成】加载了 " + allTriplets.size() + " 条关系，共计 " + allEntities.size() + " 个核心实体。");
+    private record LoadResult(GraphState state, long elapsedMs, long heapDeltaBytes, long matcherHeapDeltaBytes,
+                              long mappedBytes) {
     }
 
     /**
@@ -44,7 +256,7 @@ public class GraphKnowledgeService {
      * 对应你设计的：让大模型从这个 List 中选择 List_A
      */
     public List<String> getAllEntities() {
-        return this.allEntities;
+        return state.get().graph().entities();
     }
 
     /**
@@ -54,19 +266,22 @@ public class GraphKnowledgeService {
      */
     public List<String> findNeighbors(String entity) {
         if (entity == null || entity.isEmpty()) return new ArrayList<>();
+        return state.get().graph().neighbors(entity);
+    }
 
-        String searchKey = entity.toLowerCase().trim();
+    /**
+     * 本地实体识别：在文本中查找图谱里出现过的实体，返回最具体的那一个
+     * 没有命中任何实体时返回 null，由调用方决定是否交给大模型兜底
+     */
+    public String recognizeEntity(String text) {
+        return state.get().entityMatcher().bestMatch(text);
+    }
 
-        return allTriplets.stream()
-                .filter(t -> t.getHead().toLowerCase().contains(searchKey) ||
-                        t.getTail().toLowerCase().contains(searchKey))
-                .map(t -> {
-                    // 如果匹配到 head，返回 tail；反之亦然（实现双向寻找）
-                    if (t.getHead().toLowerCase().contains(searchKey)) return t.getTail();
-                    return t.getHead();
-                })
-                .distinct()
-                .collect(Collectors.toList());
+    /**
+     * 本地术语纠错：按读音把识别错的技术名词改回图谱里的实体名（微秒级，不调用大模型）
+     */
+    public PhoneticCorrector.Result correctTerms(String text) {
+        return state.get().corrector().correct(text);
     }
 
     /**
@@ -74,22 +289,13 @@ public class GraphKnowledgeService {
      * 用于给大模型提供“逻辑凭证”，解释为什么要问下一个题
      */
     public String getFactsByEntity(String entity) {
-        String searchKey = entity.toLowerCase().trim();
-        return allTriplets.stream()
-                .filter(t -> t.getHead().toLowerCase().contains(searchKey) ||
-                        t.getTail().toLowerCase().contains(searchKey))
-                .limit(5)
-                .map(t -> String.format("[%s] --(%s)--> [%s]", t.getHead(), t.getRelation(), t.getTail()))
-                .collect(Collectors.joining("\n"));
+        return String.join("\n", state.get().graph().facts(entity, 5));
     }
 
     /**
      * (保留旧接口名以防报错) 获取所有的话题（即三元组中的 source_topic）
      */
     public List<String> getAllTopics() {
-        return allTriplets.stream()
-                .map(Triplet::getSource_topic)
-                .distinct()
-                .collect(Collectors.toList());
+        return state.get().graph().topics();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package com.example.interviewer_controller.service;
+
+import com.example.interviewer_controller.model.HnswIndex;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 进程内的向量库：HNSW 图与向量段 mmap 自本地文件，检索不再经过 Chroma 的 HTTP 往返
+ * 目录结构：
+ *   vectors.f32     归一化后的向量段
+ *   graph.hnsw      HNSW 图
+ *   documents.json  与向量按下标一一对应的文档（id、正文、metadata），体量很小，直接放堆上
+ * 题库只有一千条左右，add / delete 直接全量重建索引并原子替换，检索不受影响。
+ */
+@Slf4j
+public class HnswVectorStore implements VectorStore {
+
+    static final String VECTOR_FILE = "vectors.f32";
+    static final String GRAPH_FILE = "graph.hnsw";
+    static final String DOCUMENT_FILE = "documents.json";
+
+    private static final int EMBED_BATCH_SIZE = 32;
+    private static final long BUILD_SEED = 42;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final EmbeddingModel queryEmbedding;
+    private final EmbeddingModel documentEmbedding;
+    private final Path directory;
+    private final int efSearch;
+    private final AtomicReference<State> state = new AtomicReference<>();
+
+    private record State(HnswIndex index, List<Document> documents) {
+    }
+
+    /**
+     * 文档按存储顺序的持久化形式
+     */
+    record StoredDocument(String id, String content, Map<String, Object> metadata) {
+    }
+
+    /**
+     * @param queryEmbedding    检索时给查询向量化（走缓存与批量预取）
+     * @param documentEmbedding 入库时给文档正文向量化（直连远程模型，不占查询缓存）
+     */
+    public HnswVectorStore(EmbeddingModel queryEmbedding, EmbeddingModel documentEmbedding, Path directory, int efSearch) {
+        this.queryEmbedding = queryEmbedding;
+        this.documentEmbedding = documentEmbedding;
+        this.directory = directory;
+        this.efSearch = efSearch;
+        try {
+            reload();
+        } catch (IOException e) {
+            // 以空库启动，可调用 POST /api/vectorstore/import 导入
+            log.warn("hnsw.load.failed directory={} error={}", directory, e.getMessage());
+            state.set(new State(HnswIndex.build(new float[0][], HnswIndex.DEFAULT_M, HnswIndex.DEFAULT_EF_CONSTRUCTION, BUILD_SEED), List.of()));
+        }
+    }
+
+    /**
+     * 重新 mmap 目录中的索引文件并原子替换
+     */
+    public synchronized void reload() throws IOException {
+        long start = System.currentTimeMillis();
+        HnswIndex index = HnswIndex.load(directory.resolve(VECTOR_FILE), directory.resolve(GRAPH_FILE));
+        List<StoredDocument> stored = MAPPER.readValue(directory.resolve(DOCUMENT_FILE).toFile(),
+                new TypeReference<List<StoredDocument>>() {});
+        if (stored.size() != index.size()) {
+            throw new IOException("文档数与向量数不一致: " + stored.size() + " != " + index.size());
+        }
+        List<Document> documents = new ArrayList<>(stored.size());
+        for (StoredDocument d : stored) {
+            documents.add(new Document(d.id(), d.content(), d.metadata() == null ? new HashMap<>() : d.metadata()));
+        }
+        state.set(new State(index, List.copyOf(documents)));
+        log.info("hnsw.load vectors={} dimensions={} elapsedMs={} directory={}",
+                index.size(), index.dimensions(), System.currentTimeMillis() - start, directory);
+    }
+
+    public Map<String, Object> getStatus() {
+        State s = state.get();
+        return Map.of("type", "hnsw", "directory", directory.toAbsolutePath().toString(),
+                "documents", s.documents().size(), "dimensions", s.index().dimensions(), "efSearch", efSearch);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        State s = state.get();
+        if (s.documents().isEmpty()) return new ArrayList<>();
+
+        float[] query = queryEmbedding.embed(request.getQuery());
+        int topK = request.getTopK();
+        IntPredicate filter = null;
+        if (request.hasFilterExpression()) {
+            Predicate<Map<String, Object>> predicate = MetadataFilter.compile(request.getFilterExpression());
+            filter = node -> predicate.test(s.documents().get(node).getMetadata());
+        }
+
+        List<HnswIndex.Result> results = s.index().search(query, topK, Math.max(efSearch, topK), filter);
+        // 过滤条件很苛刻时近似检索可能凑不够 topK，全量扫描兜底（千级数据量只需几十微秒）
+        if (filter != null && results.size() < topK) results = s.index().exactSearch(query, topK, filter);
+
+        List<Document> docs = new ArrayList<>(results.size());
+        for (HnswIndex.Result r : results) {
+            if (r.similarity() < request.getSimilarityThreshold()) continue;
+            Document d = s.documents().get(r.node());
+            Map<String, Object> metadata = new HashMap<>(d.getMetadata());
+            metadata.put("distance", 1 - r.similarity());
+            docs.add(new Document(d.getId(), d.getContent(), metadata));
+        }
+        return docs;
+    }
+
+    @Override
+    public synchronized void add(List<Document> documents) {
+        if (documents.isEmpty()) return;
+        State s = state.get();
+        Set<String> replaced = new HashSet<>();
+        for (Document d : documents) replaced.add(d.getId());
+
+        List<Document> all = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < s.documents().size(); i++) {
+            if (replaced.contains(s.documents().get(i).getId())) continue;
+            all.add(s.documents().get(i));
+            vectors.add(s.index().vector(i));
+        }
+        all.addAll(documents);
+        vectors.addAll(embedDocuments(documentEmbedding, documents));
+        rebuild(all, vectors);
+    }
+
+    @Override
+    public synchronized Optional<Boolean> delete(List<String> idList) {
+        State s = state.get();
+        Set<String> ids = new HashSet<>(idList);
+        List<Document> kept = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < s.documents().size(); i++) {
+            if (ids.contains(s.documents().get(i).getId())) continue;
+            kept.add(s.documents().get(i));
+            vectors.add(s.index().vector(i));
+        }
+        if (kept.size() == s.documents().size()) return Optional.of(false);
+        rebuild(kept, vectors);
+        return Optional.of(true);
+    }
+
+    /**
+     * 按批向量化文档正文
+     */
+    static List<float[]> embedDocuments(EmbeddingModel documentEmbedding, List<Document> documents) {
+        List<float[]> vectors = new ArrayList<>(documents.size());
+        for (int from = 0; from < documents.size(); from += EMBED_BATCH_SIZE) {
+            List<String> batch = new ArrayList<>();
+            for (Document d : documents.subList(from, Math.min(from + EMBED_BATCH_SIZE, documents.size()))) {
+                batch.add(d.getContent());
+            }
+            vectors.addAll(documentEmbedding.embed(batch));
+        }
+        return vectors;
+    }
+
+    private void rebuild(List<Document> documents, List<float[]> vectors) {
+        try {
+            writeIndex(directory, documents, vectors);
+            reload();
+        } catch (IOException e) {
+            throw new UncheckedIOException("HNSW 向量库写入失败", e);
+        }
+    }
+
+    /**
+     * 构建索引并写出到目录（导入工具与 add/delete 共用）；documents.json 最后写，加载时以三者数量一致为准
+     */
+    public static void writeIndex(Path directory, List<Document> documents, List<float[]> vectors) throws IOException {
+        if (documents.size() != vectors.size()) {
+            throw new IllegalArgumentException("文档数与向量数不一致: " + documents.size() + " != " + vectors.size());
+        }
+        long start = System.currentTimeMillis();
+        HnswIndex index = HnswIndex.build(vectors.toArray(new float[0][]), HnswIndex.DEFAULT_M,
+                HnswIndex.DEFAULT_EF_CONSTRUCTION, BUILD_SEED);
+        Files.createDirectories(directory);
+        index.write(directory.resolve(VECTOR_FILE), directory.resolve(GRAPH_FILE));
+
+        List<StoredDocument> stored = new ArrayList<>(documents.size());
+        for (Document d : documents) stored.add(new StoredDocument(d.getId(), d.getContent(), d.getMetadata()));
+        Path tmp = Files.createTempFile(directory, DOCUMENT_FILE, ".tmp");
+        MAPPER.writeValue(tmp.toFile(), stored);
+        Files.move(tmp, directory.resolve(DOCUMENT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("hnsw.build vectors={} elapsedMs={}", documents.size(), System.currentTimeMillis() - start);
+    }
+}
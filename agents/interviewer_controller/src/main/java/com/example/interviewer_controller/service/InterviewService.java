@@ -1,38 +1,94 @@
 package com.example.interviewer_controller.service;
 
+import com.example.interviewer_controller.model.PhoneticCorrector;
 import com.example.interviewer_controller.model.Triplet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.ai.ollama.api.OllamaOptions;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
 import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY;
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.DEFAULT_CHAT_MEMORY_RESPONSE_SIZE;
 
+@Slf4j
 @Service
 public class InterviewService {
 
     private final ChatClient chatClient;
+    // 纠错、实体提取、大纲、改写题目等预处理调用：不挂记忆 Advisor，不写入也不读取任何会话的对话记忆
+    private final ChatClient preprocessClient;
+    private final ChatMemory chatMemory;
     private final VectorStore vectorStore;
     private final GraphKnowledgeService graphService;
-    private final Map<String, InterviewSession> sessionStates = new ConcurrentHashMap<>();
+    private final MultiQueryRetriever retriever;
+    private final QuestionIndexService questionIndex;
+    private final ExecutorService turnExecutor;
+    private final InterviewSessionManager sessionManager;
+    private final LlmScheduler llmScheduler;
+    private final QuestionPrefetcher prefetcher;
+    private final Counter correctionLocal;
+    private final Counter correctionEscalated;
+    private final StageMetrics stageMetrics;
+
+    private static final int SEARCH_TOP_K = 5;
+    // 固定话术：不经过大模型，跨会话逐字相同，启动时预热 TTS 缓存
+    private static final String WELCOME = "你好！我是面试官。请问你今天应聘的是什么岗位？可以简单介绍下你的技术栈吗？";
+    private static final String FINISHED_REMARK = "面试已圆满结束，感谢您的参与。请刷新页面开启新会话。";
+    // 面试结束那一轮的固定回复，报告在后台生成
+    private static final String CLOSING_REMARK = "好的，今天的面试就到这里，感谢你的参与。面试报告正在生成，稍后会显示在页面上。";
+    private static final String REPORT_FALLBACK = "面试已结束，感谢参与。由于系统原因未能生成详细报告，请联系管理员。";
+    public static final List<String> FIXED_REPLIES = List.of(WELCOME, FINISHED_REMARK, CLOSING_REMARK, REPORT_FALLBACK);
+    private static final int MAX_SEARCH_TOP_K = 20;
 
-    public InterviewService(ChatClient.Builder builder, VectorStore vectorStore, GraphKnowledgeService graphService) {
+    /**
+     * ChatClient.Builder 是 prototype bean，builder 与 preprocessBuilder 是两个独立实例。
+     * 两个客户端不能出自同一个 builder：build() 按引用沿用 builder 的默认请求配置，之后再加的记忆 Advisor 会带到先建的客户端上
+     */
+    public InterviewService(ChatClient.Builder builder, ChatClient.Builder preprocessBuilder, VectorStore vectorStore,
+                            GraphKnowledgeService graphService, MultiQueryRetriever retriever, QuestionIndexService questionIndex,
+                            @Qualifier("turnExecutor") ExecutorService turnExecutor,
+                            ChatMemory chatMemory, InterviewSessionManager sessionManager, LlmScheduler llmScheduler,
+                            QuestionPrefetcher prefetcher, MeterRegistry meterRegistry, StageMetrics stageMetrics,
+                            TokenUsageAdvisor tokenUsageAdvisor) {
         this.vectorStore = vectorStore;
         this.graphService = graphService;
+        this.retriever = retriever;
+        this.questionIndex = questionIndex;
+        this.sessionManager = sessionManager;
+        this.llmScheduler = llmScheduler;
+        this.prefetcher = prefetcher;
+        this.correctionLocal = meterRegistry.counter("stt.correction", "path", "local");
+        this.correctionEscalated = meterRegistry.counter("stt.correction", "path", "llm");
+        this.stageMetrics = stageMetrics;
+        this.turnExecutor = turnExecutor;
+        this.chatMemory = chatMemory;
         this.chatClient = builder
-                .defaultAdvisors(new MessageChatMemoryAdvisor(new InMemoryChatMemory()))
+                .defaultAdvisors(new MessageChatMemoryAdvisor(chatMemory), tokenUsageAdvisor)
+                .build();
+        // 纠错、实体提取、大纲、润色题目是一次性的前置处理，不读也不写对话记忆；最终报告也走这里，历史由调用处显式带上
+        this.preprocessClient = preprocessBuilder
+                .defaultAdvisors(tokenUsageAdvisor)
                 .build();
     }
 
@@ -364,12 +420,15 @@ public class InterviewService {
 //        return new ChatResult(userText, response);
 //    }
 
-    private String generateFinalReport(String sessionId, String modelName) {
-        System.out.println(">>> 正在生成最终面试报告...");
+    private TurnReply generateFinalReport(String userText, String sessionId, String modelName) {
+        log.info("report.start sessionId={} model={}", sessionId, modelName);
 
-        // 这个 Prompt 不需要 userText，直接让模型回顾历史
+        // 报告只读对话历史、不写回记忆（否则报告提示词和报告正文会混进这场面试的记录）：
+        // 走不带记忆 Advisor 的 preprocessClient，历史在这里取出显式带上，面试者的最后一个回答单独放进提示词
+        List<Message> history = chatMemory.get(sessionId, DEFAULT_CHAT_MEMORY_RESPONSE_SIZE);
         String summaryPrompt = """
         面试已经结束。请你作为首席面试官，根据刚才所有的对话历史记录，对面试者的表现进行综合评价。
+        面试者对最后一个问题的回答：{lastAnswer}
         
         请严格按以下格式输出：
         好的，今天的面试就到这里。
@@ -383,23 +442,73 @@ public class InterviewService {
         3. 不要输出除上述格式以外的其他任何内容。
         """;
 
-        try {
-            return chatClient.prompt()
-                    .user(summaryPrompt)
-                    .options(OllamaOptions.builder().withModel(modelName).build())
-                    // 核心：通过 sessionId 让 Advisor 把刚才聊天的全过程历史塞给模型
-                    .advisors(a -> a.param(CHAT_MEMORY_CONVERSATION_ID_KEY, sessionId))
-                    .call()
-                    .content();
-        } catch (Exception e) {
-            System.err.println("报告生成失败: " + e.getMessage());
-            return "面试已结束，感谢参与。由于系统原因未能生成详细报告，请联系管理员。";
+        return TurnReply.generate(userText, preprocessClient.prompt()
+                        .messages(history)
+                        .user(u -> u.text(summaryPrompt).param("lastAnswer", userText))
+                        .options(OllamaOptions.builder().withModel(modelName).build()))
+                .scheduledBy(llmScheduler, LlmScheduler.Priority.BACKGROUND)
+                .timedBy(stageMetrics, StageMetrics.REPORT)
+                .withFallback(e -> {
+                    log.error("report.failed sessionId={} error={}", sessionId, e.getMessage());
+                    return REPORT_FALLBACK;
+                });
+    }
+
+    /**
+     * 面试结束：最终报告在后台生成并挂在会话上（GET /api/interview/{sessionId}/report 查询），
+     * 本轮只回一句固定的结束语，请求线程不再等待整场面试里最长的一次生成
+     */
+    private TurnReply finishInterview(String userText, InterviewSession session, String sessionId, String modelName) {
+        session.setFinished(true);
+        prefetcher.discard(session);
+        if (session.getFinalReport() == null) {
+            session.setFinalReport(CompletableFuture.supplyAsync(
+                    () -> generateFinalReport(userText, sessionId, modelName).call(), turnExecutor));
+        }
+        return TurnReply.fixed(userText, CLOSING_REMARK);
+    }
+
+    /**
+     * 最终报告的生成结果；面试尚未结束或会话不存在时返回 null
+     */
+    public CompletableFuture<String> getFinalReport(String sessionId) {
+        InterviewSession session = sessionManager.find(sessionId);
+        return session == null ? null : session.getFinalReport();
+    }
+
+    /**
+     * 最终报告的状态：none（面试未结束）/ pending / ready / failed
+     */
+    public Map<String, Object> getFinalReportStatus(String sessionId) {
+        CompletableFuture<String> report = getFinalReport(sessionId);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sessionId", sessionId);
+        if (report == null) {
+            status.put("status", "none");
+        } else if (!report.isDone()) {
+            status.put("status", "pending");
+        } else if (report.isCompletedExceptionally()) {
+            status.put("status", "failed");
+        } else {
+            status.put("status", "ready");
+            status.put("report", report.join());
         }
+        return status;
     }
 
     public ChatResult chat(String userText, String sessionId, String modelName) {
-        System.out.println("\n" + "*".repeat(60));
-        InterviewSession session = sessionStates.computeIfAbsent(sessionId, k -> new InterviewSession());
+        TurnReply reply = prepareChat(userText, sessionId, modelName, corrected -> {});
+        return new ChatResult(reply.getCorrectedUserText(), reply.call());
+    }
+
+    /**
+     * 完成一轮对话中除最终生成以外的全部工作（纠错、实体锚定、图谱跳转、搜题），
+     * 返回待生成的回复，由调用方决定阻塞生成还是流式输出。
+     * onCorrected 在纠错完成后立即回调，流式接口借此第一时间把纠错后的文本推给前端。
+     */
+    public TurnReply prepareChat(String userText, String sessionId, String modelName, Consumer<String> onCorrected) {
+        log.debug("turn.start sessionId={} model={} text={}", sessionId, modelName, userText);
+        InterviewSession session = sessionManager.getOrCreate(sessionId);
 
         // 0. 结束判定
         if (session.isFinished() || session.getTotalValidKeywordsHandled() >= InterviewSession.KEYWORD_THRESHOLD) {
@@ -407,29 +516,69 @@ public class InterviewService {
 //            return new ChatResult(userText, "面试已结束，感谢。");
             // 如果是第一次进入结束状态
             if (!session.isFinished()) {
-                session.setFinished(true); // 锁定状态
-                String finalReport = generateFinalReport(sessionId, modelName);
-                return new ChatResult(userText, finalReport);
+                return finishInterview(userText, session, sessionId, modelName); // 锁定状态，后台生成报告
             }
 
             // 如果已经结束过了，用户又发了消息
-            return new ChatResult(userText, "面试已圆满结束，感谢您的参与。请刷新页面开启新会话。");
+            return TurnReply.fixed(userText, FINISHED_REMARK);
         }
 
         // 1. START 阶段
         if ("START".equalsIgnoreCase(userText)) {
             session.setStep(1);
-            String welcome = "你好！我是面试官。请问你今天应聘的是什么岗位？可以简单介绍下你的技术栈吗？";
-            session.setLastQuestion(welcome);
-            return new ChatResult(userText, welcome);
+            session.setLastQuestion(WELCOME);
+            return TurnReply.fixed(userText, WELCOME);
+        }
+
+        TurnTasks tasks = new TurnTasks();
+        try {
+            return prepareTurn(userText, session, sessionId, modelName, onCorrected, tasks);
+        } catch (RuntimeException e) {
+            // 正常返回时组内任务都已 join 完；只有失败时才有还在跑的任务需要中断
+            tasks.cancelAll();
+            throw e;
         }
+    }
+
+    /**
+     * 回答中提取出的实体及其图谱邻居
+     */
+    private record Hop(String entity, List<String> neighbors) {
+    }
+
+    /**
+     * 一轮对话的任务依赖图（各任务跑在虚拟线程上，本轮耗时取决于关键路径而不是各阶段之和）：
+     *
+     *   纠错 ──> 实体提取 ──> 图谱邻居 ──> 邻居多路检索 ──> 按邻居顺序挑选未问过的题
+     *
+     * 实体与上一轮结束时的预测一致时，邻居检索直接取投机预取的结果；
+     * 图谱路径用尽时切到的下一个大纲关键词也已在上一轮预取（见 QuestionPrefetcher）。
+     * 搜题是纯读操作可以并行；判重挑题会修改会话状态，统一回到当前线程按原顺序执行。
+     */
+    private TurnReply prepareTurn(String userText, InterviewSession session, String sessionId, String modelName,
+                                  Consumer<String> onCorrected, TurnTasks tasks) {
+        long start = System.currentTimeMillis();
 
         // --- 统一纠错处理 ---
-        userText = correctSpeechText(userText, session.getLastQuestion(), modelName);
+        final String rawText = userText;
+        final String lastQuestion = session.getLastQuestion();
+        CompletableFuture<String> corrected = tasks.submit(() ->
+                stageMetrics.time(StageMetrics.CORRECTION, () -> correctSpeechText(rawText, lastQuestion, modelName)));
+
+        // 纠错一完成就接着提取实体、查邻居，不等待调用方处理纠错回调
+        CompletableFuture<Hop> hopFuture = session.getStep() == 1 ? null : tasks.track(corrected
+                .thenCompose(text -> tasks.submit(() -> stageMetrics.time(StageMetrics.ENTITY, () -> extractEntityFromAnswer(text, modelName))))
+                .thenApply(entity -> {
+                    log.debug("turn.entity sessionId={} entity={}", sessionId, entity);
+                    return new Hop(entity, stageMetrics.time(StageMetrics.GRAPH, () -> graphService.findNeighbors(entity)));
+                }));
+
+        userText = tasks.join(corrected);
+        onCorrected.accept(userText);
 
         // 2. 岗位介绍阶段 -> 生成 List_A (大纲)
         if (session.getStep() == 1) {
-            System.out.println("【STEP 1】识别岗位关键词...");
+            log.debug("turn.outline.start sessionId={}", sessionId);
             List<String> allKGs = graphService.getAllEntities();
             String selectPrompt = String.format("""
             用户介绍了背景：'%s'。
@@ -437,49 +586,60 @@ public class InterviewService {
             只返回名称，逗号分隔。
             """, userText, allKGs);
 
-            String rawListA = chatClient.prompt().user(selectPrompt).options(OllamaOptions.builder().withModel(modelName).build()).call().content();
+            String rawListA = llmScheduler.call(LlmScheduler.Priority.PREPROCESS, () ->
+                    preprocessClient.prompt().user(selectPrompt).options(OllamaOptions.builder().withModel(modelName).build()).call().content());
             session.setTechKeywordsListA(Arrays.asList(rawListA.split(",")).stream().map(String::trim).collect(Collectors.toList()));
             session.setStep(2);
             session.setKeywordIndex(0);
 
-            System.out.println("【DEBUG】生成的大纲 List_A: " + session.getTechKeywordsListA());
+            log.info("turn.outline sessionId={} listA={}", sessionId, session.getTechKeywordsListA());
 
-            // 抛出基于 List_A 第一个词的题目
-            return getNextQuestionByNewKeyword(userText, session, modelName, sessionId);
+            // 抛出基于 List_A 第一个词的题目（大纲各词一次多路检索，逐个落空时不必再逐个请求）
+            return getNextQuestionByNewKeyword(userText, session, modelName, sessionId,
+                    candidatesFor(session.getTechKeywordsListA(), SEARCH_TOP_K));
         }
 
         // 3. 循环面试阶段 (评价 + 图谱跳跃 + 搜题)
-        System.out.println("【STEP 2】评价并寻找下一跳...");
+        // A + B. 提取用户回答中的实体，图谱查找邻居 (下一跳候选)
+        Hop hop = tasks.join(hopFuture);
+        List<String> neighbors = hop.neighbors();
+        log.debug("turn.neighbors sessionId={} entity={} neighbors={}", sessionId, hop.entity(), neighbors);
 
-        // A. 提取用户回答中的实体
-        String currentEntity = extractEntityFromAnswer(userText, modelName);
-        System.out.println("【DEBUG】提取到的回答实体: " + currentEntity);
-
-        // B. 图谱查找邻居 (下一跳候选)
-        List<String> neighbors = graphService.findNeighbors(currentEntity);
-        System.out.println("【DEBUG】图谱找到的邻居: " + neighbors);
+        // 实体与预测一致时，第一轮候选直接取预取结果
+        Map<String, List<Document>> prepared = prefetcher.take(session, hop.entity(), neighbors);
 
         Document nextDoc = null;
-        // C. 尝试从邻居中找一个“没问过”的问题
-        for (String neighbor : neighbors) {
-            nextDoc = searchVectorDBUnique(neighbor, session);
-            if (nextDoc != null) {
-                System.out.println("【DEBUG】图谱跳跃成功，找到新题: " + neighbor);
-                break;
+        String nextKey = null;
+        // C. 尝试从邻居中找一个“没问过”的问题：全部邻居一次多路检索，再按邻居顺序判重
+        // 候选优先取自题目索引，其余来自共享检索缓存；若前 topK 条全被本会话问过，扩大 topK 再找一轮
+        Map<String, List<Document>> candidates = null;
+        for (int topK = SEARCH_TOP_K; nextDoc == null && topK <= MAX_SEARCH_TOP_K; topK *= 2) {
+            List<String> keys = candidates == null ? neighbors : exhausted(candidates, topK / 2);
+            if (keys.isEmpty()) break;
+            candidates = candidates == null && prepared != null ? prepared : candidatesFor(keys, topK);
+            for (String neighbor : keys) {
+                nextDoc = pickUnused(neighbor, candidates.get(neighbor), session);
+                if (nextDoc != null) {
+                    nextKey = neighbor;
+                    log.debug("turn.hop sessionId={} neighbor={} topK={}", sessionId, neighbor, topK);
+                    break;
+                }
             }
         }
+        log.debug("turn.retrieval sessionId={} elapsedMs={}", sessionId, System.currentTimeMillis() - start);
 
         // D. 如果邻居都问过了或没邻居，则切换回 List_A 大纲
         if (nextDoc == null) {
-            System.out.println("【DEBUG】图谱路径用尽，切换大纲关键词...");
+            log.debug("turn.outline.next sessionId={} keywordIndex={}", sessionId, session.getKeywordIndex() + 1);
             session.setKeywordIndex(session.getKeywordIndex() + 1);
             if (session.getKeywordIndex() >= session.getTechKeywordsListA().size()) {
-                return handleInterviewEnd(userText, session, modelName);
+                return finishInterview(userText, session, sessionId, modelName);
             }
-            return getNextQuestionByNewKeyword(userText, session, modelName, sessionId);
+            return getNextQuestionByNewKeyword(userText, session, modelName, sessionId, null);
         }
 
-        // E. 正常执行：评价 + 抛出新题
+        // E. 正常执行：评价 + 抛出新题，同时为下一轮预取
+        prepareNext(session, nextKey);
         return composeResponse(userText, nextDoc, session, modelName, sessionId);
     }
 
@@ -502,76 +662,143 @@ public class InterviewService {
 //    }
 
     private Document searchVectorDBUnique(String queryKey, InterviewSession session) {
-        System.out.println("\n" + "·".repeat(20) + " [向量库检索开始] " + "·".repeat(20));
-        System.out.println("【DEBUG-VEC】检索关键词 (queryKey): [" + queryKey + "]");
+        return pickUnused(queryKey, searchCandidates(queryKey), session);
+    }
+
+    /**
+     * 候选题搜索（纯读操作，可并行调用）：题目索引收录的实体直接取索引，否则实时向量检索
+     */
+    private List<Document> searchCandidates(String queryKey) {
+        List<Document> indexed = questionIndex.candidates(queryKey, SEARCH_TOP_K);
+        return indexed != null ? indexed : retriever.search(queryKey, SEARCH_TOP_K);
+    }
 
-        // 1. 执行向量相似度搜索
-        List<Document> docs = vectorStore.similaritySearch(SearchRequest.query(queryKey).withTopK(5));
+    /**
+     * 多个关键词的候选题：先查题目索引，未收录的关键词再一次多路检索
+     */
+    private Map<String, List<Document>> candidatesFor(List<String> queryKeys, int topK) {
+        Map<String, List<Document>> indexed = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String key : queryKeys) {
+            List<Document> docs = questionIndex.candidates(key, topK);
+            if (docs != null) indexed.put(key, docs);
+            else unknown.add(key);
+        }
+        Map<String, List<Document>> searched = searchAll(unknown, topK);
+        Map<String, List<Document>> byKey = new LinkedHashMap<>();
+        for (String key : queryKeys) byKey.putIfAbsent(key, indexed.containsKey(key) ? indexed.get(key) : searched.get(key));
+        if (!indexed.isEmpty()) {
+            log.debug("vector.index.hit hits={} keys={}", indexed.size(), queryKeys.size());
+        }
+        return byKey;
+    }
 
+    /**
+     * 多路检索（一次批量向量化 + 并发搜索），返回 关键词 -> 候选文档
+     */
+    private Map<String, List<Document>> searchAll(List<String> queryKeys, int topK) {
+        List<List<Document>> results = retriever.searchAll(queryKeys, topK);
+        Map<String, List<Document>> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < queryKeys.size(); i++) byKey.putIfAbsent(queryKeys.get(i), results.get(i));
+        return byKey;
+    }
+
+    /**
+     * 上一轮 topK 条结果都没选中、且库里可能还有更多结果的关键词（用于扩大 topK 重新检索）
+     */
+    private List<String> exhausted(Map<String, List<Document>> previous, int topK) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, List<Document>> e : previous.entrySet()) {
+            if (e.getValue() != null && e.getValue().size() >= topK) result.add(e.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * 在候选文档中挑出第一道没问过的题并登记（会修改会话状态，只在本轮的主线程调用）
+     * 包级可见供 JMH 基准（src/jmh/java）直接调用
+     */
+    static Document pickUnused(String queryKey, List<Document> docs, InterviewSession session) {
         if (docs == null || docs.isEmpty()) {
-            System.out.println("【DEBUG-VEC】结果：未在向量库中找到任何相关内容。");
+            log.debug("vector.pick key={} candidates=0", queryKey);
             return null;
         }
 
-        System.out.println("【DEBUG-VEC】检索到 " + docs.size() + " 条候选文档：");
-//        System.out.println(docs);
-
         for (int i = 0; i < docs.size(); i++) {
             Document d = docs.get(i);
             Map<String, Object> metadata = d.getMetadata();
 
-            // 2. 获取判重 ID（如果 topic 为空，取内容前15个字，防止前面几道题开头都一样导致碰撞）
+            // 获取判重 ID（如果 topic 为空，取内容前15个字，防止前面几道题开头都一样导致碰撞）
             String topicMeta = (String) metadata.get("topic");
             String qId = (topicMeta != null && !topicMeta.isEmpty())
                     ? topicMeta
                     : d.getContent().substring(0, Math.min(d.getContent().length(), 15)).trim();
 
-            // 3. 准备打印内容预览（取前 50 字并去掉换行）
-            String contentPreview = d.getContent().substring(0, Math.min(d.getContent().length(), 50)).replace("\n", " ");
-
-            System.out.println(String.format("  ➤ 候选 [%d]:", i));
-            System.out.println("     - [ID/Topic]: " + qId);
-            System.out.println("     - [Metadata]: " + metadata);
-            System.out.println("     - [内容预览]: " + contentPreview + "...");
+            boolean used = session.getUsedQuestionIds().contains(qId);
+            // 每个候选一行，只在 DEBUG 级别拼装元数据和内容预览
+            if (log.isDebugEnabled()) {
+                String contentPreview = d.getContent().substring(0, Math.min(d.getContent().length(), 50)).replace("\n", " ");
+                log.debug("vector.pick key={} index={} qId={} used={} metadata={} preview={}",
+                        queryKey, i, qId, used, metadata, contentPreview);
+            }
 
-            // 4. 执行判重逻辑
-            if (!session.getUsedQuestionIds().contains(qId)) {
-                System.out.println("     ✅ 决策：未曾问过，选定此题。");
+            if (!used) {
                 session.getUsedQuestionIds().add(qId);
-                System.out.println("·".repeat(50) + "\n");
                 return d;
-            } else {
-                System.out.println("     ❌ 决策：已在 UsedQuestionIds 列表中，跳过。");
             }
         }
 
-        System.out.println("【DEBUG-VEC】结果：所有候选项都已问过。");
-        System.out.println("·".repeat(50) + "\n");
+        log.debug("vector.pick key={} candidates={} result=all_used", queryKey, docs.size());
         return null;
     }
 
     /**
-     * 当切入一个全新的大纲关键词时执行
+     * 当切入一个全新的大纲关键词时执行；
+     * prefetched 为大纲关键词预先检索好的候选（可为 null），命中时省去一次向量检索
      */
-    private ChatResult getNextQuestionByNewKeyword(String userText, InterviewSession session, String modelName, String sessionId) {
+    private TurnReply getNextQuestionByNewKeyword(String userText, InterviewSession session, String modelName, String sessionId,
+                                                  Map<String, List<Document>> prefetched) {
         String currentKeyword = session.getTechKeywordsListA().get(session.getKeywordIndex());
-        Document doc = searchVectorDBUnique(currentKeyword, session);
+        List<Document> outlined = prefetched != null && prefetched.containsKey(currentKeyword)
+                ? prefetched.get(currentKeyword)
+                : prefetcher.outline(session, currentKeyword);
+        Document doc = outlined != null
+                ? pickUnused(currentKeyword, outlined, session)
+                : searchVectorDBUnique(currentKeyword, session);
 
         if (doc == null) { // 如果大纲里的词也没题，递归找下一个大纲词
             session.setKeywordIndex(session.getKeywordIndex() + 1);
             if (session.getKeywordIndex() >= session.getTechKeywordsListA().size())
-                return handleInterviewEnd(userText, session, modelName);
-            return getNextQuestionByNewKeyword(userText, session, modelName, sessionId);
+                return finishInterview(userText, session, sessionId, modelName);
+            return getNextQuestionByNewKeyword(userText, session, modelName, sessionId, prefetched);
         }
 
         session.setTotalValidKeywordsHandled(session.getTotalValidKeywordsHandled() + 1);
+        prepareNext(session, currentKeyword);
         return composeResponse(userText, doc, session, modelName, sessionId);
     }
 
+    /**
+     * 抛出新题后，趁面试者作答为下一轮预取：刚问的题所属实体的邻居，以及下一个大纲关键词
+     */
+    private void prepareNext(InterviewSession session, String askedEntity) {
+        List<String> listA = session.getTechKeywordsListA();
+        int next = session.getKeywordIndex() + 1;
+        String outlineKeyword = next < listA.size() ? listA.get(next) : null;
+        prefetcher.prepare(session, askedEntity, outlineKeyword, keys -> candidatesFor(keys, SEARCH_TOP_K));
+    }
+
     /**
      * 从用户回答中提取核心技术实体
      */
-    private String extractEntityFromAnswer(String userText, String modelName) {
+    String extractEntityFromAnswer(String userText, String modelName) {
+        // 0. 先走本地词典匹配：实体必须出现在图谱里，能直接命中就不必再调用大模型
+        String localEntity = graphService.recognizeEntity(userText);
+        if (localEntity != null) {
+            log.debug("entity.local entity={}", localEntity);
+            return localEntity;
+        }
+
         // 1. 获取图谱中所有已知的实体列表（可选，作为参考给模型，能极大提高匹配率）
         // 如果实体列表太大（过万），则不建议全量传入，可以只传一个简单的提取指令
         List<String> allKnownEntities = graphService.getAllEntities();
@@ -590,11 +817,11 @@ public class InterviewService {
             """, userText);
 
         try {
-            String entity = chatClient.prompt()
+            String entity = llmScheduler.call(LlmScheduler.Priority.PREPROCESS, () -> preprocessClient.prompt()
                     .user(prompt)
                     .options(OllamaOptions.builder().withModel(modelName).build())
                     .call()
-                    .content()
+                    .content())
                     .trim();
 
             // 基础清洗：防止大模型固执地吐出“实体：ZooKeeper”或者带有句号
@@ -603,7 +830,7 @@ public class InterviewService {
 
             return entity;
         } catch (Exception e) {
-            System.err.println(">>> [ERROR] 实体提取环节异常: " + e.getMessage());
+            log.warn("entity.failed error={}", e.getMessage());
             return "None";
         }
     }
@@ -611,8 +838,7 @@ public class InterviewService {
     /**
      * 组装：评价上轮 + 抛出下轮
      */
-    private ChatResult composeResponse(String userText, Document nextDoc, InterviewSession session, String modelName, String sessionId) {
-        System.out.println("尝试回复中~");
+    private TurnReply composeResponse(String userText, Document nextDoc, InterviewSession session, String modelName, String sessionId) {
         final String lastAnswer = session.getLastExpectedAnswer(); // 此时是针对用户当前回答的标准解
         final String nextFullContent = nextDoc.getContent();
         final String nextQ = extractQuestionOnly(nextFullContent);
@@ -634,39 +860,25 @@ public class InterviewService {
         3. 语气温和
         """;
 
-        String response = chatClient.prompt()
-                .system(s -> s.text(promptTemplate)
-                        .param("nextQ", nextQ)
-                        // 核心改进 3: 将答案内容通过 param 传入，ST4 引擎会安全处理其中的代码/花括号
-                        .param("expectedAnswer", lastAnswer.isEmpty() ? "这是第一题，无需评价" : lastAnswer))
-                .user(userText)
-                .options(OllamaOptions.builder().withModel(modelName).build())
-                // 确保带上 sessionId 保持多轮记忆
-                .advisors(a -> a.param(CHAT_MEMORY_CONVERSATION_ID_KEY, sessionId))
-                .call()
-                .content();
-
-        session.setLastQuestion(response);
-        return new ChatResult(userText, response);
-    }
-
-    /**
-     * 结束流程
-     */
-    private ChatResult handleInterviewEnd(String userText, InterviewSession session, String modelName) {
-        session.setFinished(true);
-        String summary = chatClient.prompt()
-                .user("面试结束。请根据历史表现对用户进行综合评分和优缺点总结。")
-                .options(OllamaOptions.builder().withModel(modelName).build())
-                .call().content();
-        return new ChatResult(userText, "好的，今天的技术考察到此为止。总结如下：\n" + summary);
+        return TurnReply.generate(userText, chatClient.prompt()
+                        .system(s -> s.text(promptTemplate)
+                                .param("nextQ", nextQ)
+                                // 核心改进 3: 将答案内容通过 param 传入，ST4 引擎会安全处理其中的代码/花括号
+                                .param("expectedAnswer", lastAnswer.isEmpty() ? "这是第一题，无需评价" : lastAnswer))
+                        .user(userText)
+                        .options(OllamaOptions.builder().withModel(modelName).build())
+                        // 确保带上 sessionId 保持多轮记忆
+                        .advisors(a -> a.param(CHAT_MEMORY_CONVERSATION_ID_KEY, sessionId)))
+                .scheduledBy(llmScheduler, LlmScheduler.Priority.INTERACTIVE)
+                .timedBy(stageMetrics, StageMetrics.COMPOSE)
+                .onComplete(session::setLastQuestion);
     }
 
 
     // --- 辅助方法 ---
     private String polishQuestion(String topic, String rawContent, String modelName) {
         String q = extractQuestionOnly(rawContent);
-        return chatClient.prompt()
+        return llmScheduler.call(LlmScheduler.Priority.INTERACTIVE, () -> preprocessClient.prompt()
                 .user(String.format("""
                 你是一个资深技术面试官。
                 任务：将以下死板的题目改写成一句自然的、真人在面试现场会问出的口语化提问。
@@ -681,7 +893,7 @@ public class InterviewService {
                 4. **禁止输出任何除题目本身以外的文字**。
                 """, topic, q))
                 .options(OllamaOptions.builder().withModel(modelName).build())
-                .call().content().trim();
+                .call().content()).trim();
     }
 
     private Document getQuestionFromVectorDB(String topic) {
@@ -689,19 +901,41 @@ public class InterviewService {
         return docs.isEmpty() ? new Document("面试题：请聊聊" + topic + "。\n标准答案：略") : docs.get(new Random().nextInt(docs.size()));
     }
 
-    private String extractQuestionOnly(String rawContent) {
+    static String extractQuestionOnly(String rawContent) {
         if (rawContent.contains("标准答案")) {
             return rawContent.split("标准答案")[0].replace("面试题：", "").trim();
         }
         return rawContent;
     }
 
-    private String correctSpeechText(String rawText, String lastQuestion, String modelName) {
+    private String escalationRate() {
+        double local = correctionLocal.count();
+        double escalated = correctionEscalated.count();
+        return String.format("%.0f/%.0f", escalated, local + escalated);
+    }
+
+    String correctSpeechText(String rawText, String lastQuestion, String modelName) {
         // 如果没有上一个问题（比如自我介绍阶段），直接返回原样
         if (lastQuestion == null || lastQuestion.isEmpty()) {
             return rawText;
         }
 
+        // 先走本地读音纠错，没有拿不准的片段就不再调用大模型
+        long start = System.nanoTime();
+        PhoneticCorrector.Result local = graphService.correctTerms(rawText);
+        long micros = (System.nanoTime() - start) / 1000;
+        for (PhoneticCorrector.Correction c : local.corrections()) {
+            log.debug("correction.local from={} to={}", c.from(), c.to());
+        }
+        if (!local.uncertain()) {
+            correctionLocal.increment();
+            log.debug("correction path=local micros={} escalated={}", micros, escalationRate());
+            return local.text();
+        }
+        correctionEscalated.increment();
+        log.debug("correction path=llm suspects={} escalated={}", local.suspects(), escalationRate());
+        rawText = local.text();
+
         try {
             String correctionPrompt = String.format("""
             你是一个计算机技术专家。现在正在辅佐面试官对被面试者进行面试，由于语音识别(STT)在处理专业词汇时可能出错，请你根据【上一个面试问题】来修复面试者回答的【原始识别文本】中的技术术语错误。
@@ -716,23 +950,30 @@ public class InterviewService {
             4. **只返回修复后的最终文本，严禁任何解释。**
             """, lastQuestion, rawText);
 
-            String corrected = chatClient.prompt()
+            String corrected = llmScheduler.call(LlmScheduler.Priority.PREPROCESS, () -> preprocessClient.prompt()
                     .user(correctionPrompt)
                     .options(OllamaOptions.builder().withModel(modelName).build())
-                    .call().content().trim();
+                    .call().content()).trim();
 
-            System.out.println("【DEBUG-STT】修正前: " + rawText);
-            System.out.println("【DEBUG-STT】修正后: " + corrected);
+            log.debug("correction.llm before={} after={}", rawText, corrected);
             return corrected;
         } catch (Exception e) {
-            System.err.println(">>> 语义纠错失败: " + e.getMessage());
+            log.warn("correction.failed error={}", e.getMessage());
             return rawText; // 失败则容错，使用原文本
         }
     }
 
     public String chat_2(String userText, String sessionId, String modelName) {
-        System.out.println("\n" + "⚡".repeat(60));
-        System.out.println("【chat_2】Session: " + sessionId + " | 原始输入: " + userText);
+        return prepareChat2(userText, sessionId, modelName).call();
+    }
+
+    /**
+     * 微调模式：模型自主控场，不做任何检索，只构造一次带记忆的生成
+     */
+    public TurnReply prepareChat2(String userText, String sessionId, String modelName) {
+        log.debug("chat2.start sessionId={} model={} text={}", sessionId, modelName, userText);
+        // 微调模式只用对话记忆，同样登记会话以便空闲后一起释放
+        sessionManager.getOrCreate(sessionId);
 
 
         // 👈 核心修复点：定义一个 final 变量供 Lambda 使用
@@ -744,20 +985,69 @@ public class InterviewService {
         """;
 
         // 3. 调用大模型
-        try {
-            return chatClient.prompt()
-                    // 👈 这里使用 finalRagContext
-                    .system(s -> s.text(systemPrompt).param("ragContext", finalRagContext))
-                    .user(userText)
-                    .options(OllamaOptions.builder().withModel(modelName).build())
-                    .advisors(a -> a
-                            .param(CHAT_MEMORY_CONVERSATION_ID_KEY, sessionId)
-                            .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 15))
-                    .call()
-                    .content();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "面试官信号灯闪烁，请稍后再试: " + e.getMessage();
+        return TurnReply.generate(userText, chatClient.prompt()
+                        // 👈 这里使用 finalRagContext
+                        .system(s -> s.text(systemPrompt).param("ragContext", finalRagContext))
+                        .user(userText)
+                        .options(OllamaOptions.builder().withModel(modelName).build())
+                        .advisors(a -> a
+                                .param(CHAT_MEMORY_CONVERSATION_ID_KEY, sessionId)
+                                .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 15)))
+                .scheduledBy(llmScheduler, LlmScheduler.Priority.INTERACTIVE)
+                .timedBy(stageMetrics, StageMetrics.COMPOSE)
+                .withFallback(e -> {
+                    log.error("chat2.failed sessionId={}", sessionId, e);
+                    return "面试官信号灯闪烁，请稍后再试: " + e.getMessage();
+                });
+    }
+
+    /**
+     * 一轮对话内的并行任务组：任一任务失败时取消组内其余任务，依赖它的下游阶段随之取消。
+     * CompletableFuture.cancel 不会中断已经在跑的线程，所以任务经 ExecutorService.submit 提交并保留其 Future，
+     * 取消时中断执行线程：还在 LlmScheduler 排队的调用直接退出，阻塞在模型、向量库 HTTP 请求上的调用随请求中止。
+     * 取消只发生在失败路径上；正常返回时组内任务都已 join 完，不会中断任何调用
+     */
+    private final class TurnTasks {
+        private final List<CompletableFuture<?>> futures = new CopyOnWriteArrayList<>();
+        private final List<Future<?>> running = new CopyOnWriteArrayList<>();
+        private volatile boolean cancelled;
+
+        <T> CompletableFuture<T> submit(Supplier<T> task) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            running.add(turnExecutor.submit(() -> {
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+            // 下游阶段可能在 cancelAll 之后才提交
+            if (cancelled) cancelAll();
+            return track(result);
+        }
+
+        <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+            futures.add(future);
+            future.whenComplete((result, e) -> {
+                if (e != null) cancelAll();
+            });
+            return future;
+        }
+
+        <T> T join(CompletableFuture<T> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                cancelAll();
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+
+        void cancelAll() {
+            cancelled = true;
+            for (CompletableFuture<?> future : futures) future.cancel(true);
+            for (Future<?> future : running) future.cancel(true);
         }
     }
 
@@ -767,4 +1057,108 @@ public class InterviewService {
         private String correctedUserText; // 纠错后的用户说话内容
         private String aiResponse;        // AI 的回答
     }
-}
\ No newline at end of file
+
+    /**
+     * 一轮对话的待生成回复：可能是固定文案，也可能是一次尚未执行的大模型生成。
+     * 同一个回复既可以阻塞生成（call），也可以流式输出（stream），生成结束后统一回写会话状态。
+     */
+    public static final class TurnReply {
+        private final String correctedUserText;
+        private final String text;                                  // 固定文案，仅在 request 为 null 时使用
+        private final ChatClient.ChatClientRequestSpec request;     // 为 null 表示纯固定文案
+        private Function<Throwable, String> fallback;               // 生成失败时的兜底文案，为 null 则直接抛出
+        private LlmScheduler scheduler;                             // 为 null 时直接调用模型
+        private LlmScheduler.Priority priority = LlmScheduler.Priority.INTERACTIVE;
+        private Consumer<String> onComplete = response -> {};
+        private StageMetrics stageMetrics;                          // 为 null 时不计时
+        private String stage;
+
+        private TurnReply(String correctedUserText, String text, ChatClient.ChatClientRequestSpec request) {
+            this.correctedUserText = correctedUserText;
+            this.text = text;
+            this.request = request;
+        }
+
+        static TurnReply fixed(String correctedUserText, String text) {
+            return new TurnReply(correctedUserText, text, null);
+        }
+
+        static TurnReply generate(String correctedUserText, ChatClient.ChatClientRequestSpec request) {
+            return new TurnReply(correctedUserText, null, request);
+        }
+
+        TurnReply withFallback(Function<Throwable, String> fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        /**
+         * 生成经由调度器排队（同步调用占用名额到返回，流式调用占用到流结束）
+         */
+        TurnReply scheduledBy(LlmScheduler scheduler, LlmScheduler.Priority priority) {
+            this.scheduler = scheduler;
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * 生成耗时计入 interview.stage{stage}（含调度排队；流式调用计到流结束）
+         */
+        TurnReply timedBy(StageMetrics stageMetrics, String stage) {
+            this.stageMetrics = stageMetrics;
+            this.stage = stage;
+            return this;
+        }
+
+        TurnReply onComplete(Consumer<String> onComplete) {
+            this.onComplete = onComplete;
+            return this;
+        }
+
+        public String getCorrectedUserText() {
+            return correctedUserText;
+        }
+
+        /**
+         * 阻塞生成完整回复
+         */
+        public String call() {
+            String response = text;
+            if (request != null) {
+                long start = System.nanoTime();
+                try {
+                    response = scheduler == null ? request.call().content()
+                            : scheduler.call(priority, () -> request.call().content());
+                } catch (RuntimeException e) {
+                    if (fallback == null) throw e;
+                    response = fallback.apply(e);
+                } finally {
+                    if (stageMetrics != null) stageMetrics.record(stage, start);
+                }
+            }
+            onComplete.accept(response);
+            return response;
+        }
+
+        /**
+         * 流式生成：按模型产出的片段逐个推送，结束后回写完整文本
+         */
+        public Flux<String> stream() {
+            if (request == null) {
+                return Flux.just(text).doOnComplete(() -> onComplete.accept(text));
+            }
+            StringBuilder full = new StringBuilder();
+            Flux<String> tokens = scheduler == null ? request.stream().content()
+                    : scheduler.stream(priority, () -> request.stream().content());
+            if (fallback != null) tokens = tokens.onErrorResume(e -> Flux.just(fallback.apply(e)));
+            if (stageMetrics != null) {
+                long[] start = new long[1];
+                tokens = tokens.doOnSubscribe(s -> start[0] = System.nanoTime())
+                        .doFinally(signal -> stageMetrics.record(stage, start[0]));
+            }
+            return tokens
+                    .doOnNext(full::append)
+                    .doOnComplete(() -> onComplete.accept(full.toString()));
+        }
+    }
+}
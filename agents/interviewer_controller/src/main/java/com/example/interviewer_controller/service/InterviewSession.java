@@ -5,22 +5,42 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Data
 @NoArgsConstructor
 class InterviewSession {
     private List<String> techKeywordsListA = new ArrayList<>(); // 岗位关键词大纲 (List_A)
     private int keywordIndex = 0;                               // 当前在大纲中的位置
-    private Set<String> usedQuestionIds = new HashSet<>();      // 记录已问过的问题编号
+    private Set<String> usedQuestionIds = ConcurrentHashMap.newKeySet(); // 记录已问过的问题编号（内存统计会在其他线程遍历）
     private String lastExpectedAnswer = "";                     // 上一题标准答案
     private String lastQuestion = "";                           // 上一个提出的问题
     private int totalValidKeywordsHandled = 0;                  // 已有效匹配的关键词数量
     private int step = 0;
     private boolean isFinished = false;
+    private CompletableFuture<String> finalReport;              // 后台生成的最终报告，面试结束后才有
+    private volatile QuestionPrefetcher.Prepared prepared;      // 为下一轮投机预取的候选题
 
     // 阈值常量
     public static final int KEYWORD_THRESHOLD = 2;              // 问满5个关键词大点就结束
+
+    /**
+     * 会话状态的估算内存：字符串按 UTF-16 计，另加集合节点与对象头的开销
+     */
+    public long estimateBytes() {
+        long bytes = 128;
+        for (String keyword : techKeywordsListA) bytes += 56 + chars(keyword);
+        for (String id : usedQuestionIds) bytes += 88 + chars(id);
+        if (finalReport != null && finalReport.isDone() && !finalReport.isCompletedExceptionally()) {
+            bytes += chars(finalReport.join());
+        }
+        return bytes + chars(lastExpectedAnswer) + chars(lastQuestion);
+    }
+
+    private static long chars(String s) {
+        return s == null ? 0 : 2L * s.length();
+    }
 }
@@ -0,0 +1,180 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 面试会话的生命周期管理（取代无上限的 sessionStates Map）：
+ * 1. 空闲超过 idle-ttl 的会话由后台线程定期清理
+ * 2. 会话数超过上限时淘汰最久未访问的会话
+ * 3. 淘汰时会话状态与对话记忆一起释放
+ * 每个会话按"状态 + 对话记忆"估算字节数，总数与会话数通过 interview.sessions.* 指标暴露。
+ */
+@Slf4j
+@Service
+public class InterviewSessionManager {
+
+    private final SessionChatMemory chatMemory;
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evictedIdle = new AtomicLong();
+    private final AtomicLong evictedCapacity = new AtomicLong();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "session-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final long idleTtlMinutes;
+    private final int maxSessions;
+
+    private static final class SessionEntry {
+        private final InterviewSession session = new InterviewSession();
+        private volatile long lastAccess = System.currentTimeMillis();
+    }
+
+    public InterviewSessionManager(SessionChatMemory chatMemory, MeterRegistry meterRegistry,
+                                   @Value("${interview.session.idle-ttl-minutes:30}") long idleTtlMinutes,
+                                   @Value("${interview.session.max-sessions:500}") int maxSessions) {
+        this.chatMemory = chatMemory;
+        this.idleTtlMinutes = idleTtlMinutes;
+        this.maxSessions = maxSessions;
+        Gauge.builder("interview.sessions.active", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("interview.sessions.bytes", this, InterviewSessionManager::totalBytes).baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("interview.sessions.created", created, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("interview.sessions.evicted", evictedIdle, AtomicLong::get).tag("reason", "idle").register(meterRegistry);
+        FunctionCounter.builder("interview.sessions.evicted", evictedCapacity, AtomicLong::get).tag("reason", "capacity").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // 检查间隔取 TTL 的四分之一，最长一分钟
+        long periodSeconds = Math.max(1, Math.min(60, TimeUnit.MINUTES.toSeconds(idleTtlMinutes) / 4));
+        sweeper.scheduleWithFixedDelay(this::evictIdle, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * 取会话状态，不存在则创建；每次调用都刷新最近访问时间
+     */
+    InterviewSession getOrCreate(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            SessionEntry fresh = new SessionEntry();
+            entry = sessions.putIfAbsent(sessionId, fresh);
+            if (entry == null) {
+                entry = fresh;
+                created.incrementAndGet();
+                evictOverCapacity(sessionId);
+            }
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.session;
+    }
+
+    /**
+     * 取已有的会话状态（刷新访问时间），不存在时返回 null
+     */
+    InterviewSession find(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) return null;
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.session;
+    }
+
+    /**
+     * 主动结束会话：状态与对话记忆一起释放
+     */
+    public void remove(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry != null) evict(sessionId, entry);
+    }
+
+    private boolean evict(String sessionId, SessionEntry entry) {
+        if (!sessions.remove(sessionId, entry)) return false;
+        chatMemory.clear(sessionId);
+        return true;
+    }
+
+    private void evictOverCapacity(String keep) {
+        while (sessions.size() > maxSessions) {
+            String eldestId = null;
+            SessionEntry eldest = null;
+            for (Map.Entry<String, SessionEntry> e : sessions.entrySet()) {
+                if (e.getKey().equals(keep)) continue;
+                if (eldest == null || e.getValue().lastAccess < eldest.lastAccess) {
+                    eldestId = e.getKey();
+                    eldest = e.getValue();
+                }
+            }
+            if (eldest == null) return;
+            if (evict(eldestId, eldest)) {
+                evictedCapacity.incrementAndGet();
+                log.warn("session.evict reason=capacity maxSessions={} sessionId={}", maxSessions, eldestId);
+            }
+        }
+    }
+
+    void evictIdle() {
+        long deadline = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleTtlMinutes);
+        int count = 0;
+        for (Map.Entry<String, SessionEntry> e : sessions.entrySet()) {
+            if (e.getValue().lastAccess < deadline && evict(e.getKey(), e.getValue())) count++;
+        }
+        // 淘汰瞬间仍在进行的那一轮可能在 clear 之后又写入记忆，这里一并清掉
+        chatMemory.retainAll(sessions.keySet());
+        if (count > 0) {
+            evictedIdle.addAndGet(count);
+            log.info("session.evict reason=idle evicted={} remaining={}", count, sessions.size());
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * 单个会话的估算内存：会话状态 + 对话记忆
+     */
+    public long bytes(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        return entry == null ? 0 : entry.session.estimateBytes() + chatMemory.bytes(sessionId);
+    }
+
+    public long totalBytes() {
+        long total = 0;
+        for (Map.Entry<String, SessionEntry> e : sessions.entrySet()) {
+            total += e.getValue().session.estimateBytes() + chatMemory.bytes(e.getKey());
+        }
+        return total;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("active", sessions.size());
+        status.put("maxSessions", maxSessions);
+        status.put("idleTtlMinutes", idleTtlMinutes);
+        status.put("bytes", totalBytes());
+        status.put("created", created.get());
+        status.put("evictedIdle", evictedIdle.get());
+        status.put("evictedCapacity", evictedCapacity.get());
+        return status;
+    }
+}
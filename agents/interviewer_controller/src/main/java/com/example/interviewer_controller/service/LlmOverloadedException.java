@@ -0,0 +1,15 @@
+package com.example.interviewer_controller.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 模型服务过载：排队已满、等待超时或被更高优先级的请求挤出队列，返回 503
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class LlmOverloadedException extends RuntimeException {
+
+    public LlmOverloadedException(String message) {
+        super(message);
+    }
+}
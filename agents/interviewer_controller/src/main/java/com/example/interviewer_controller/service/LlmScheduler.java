@@ -0,0 +1,189 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 所有大模型调用的调度器：本地只有一个 Ollama 实例，并发生成一多，所有人的延迟一起崩掉
+ * 1. 同时在途的生成数不超过 max-concurrency，其余请求排队
+ * 2. 队列按优先级出队：面试官回复 > 纠错/实体提取等前置处理 > 面试报告、记忆摘要等后台任务
+ * 3. 每个优先级有最长等待时间，超时快速失败；队列满时挤掉优先级最低的等待者，或直接拒绝新请求
+ * 被拒绝的调用抛出 LlmOverloadedException，前置处理各自有降级（使用原文、跳过实体），整体表现为逐级降级而不是全部超时。
+ * 排队深度、等待时间与拒绝次数通过 llm.scheduler.* 指标暴露。
+ */
+@Slf4j
+@Service
+public class LlmScheduler {
+
+    public enum Priority {
+        INTERACTIVE,  // 面试官的回复，用户正在等
+        PREPROCESS,   // 纠错、实体提取、大纲生成：在回复之前，失败有降级
+        BACKGROUND    // 面试报告、对话摘要
+    }
+
+    private final int maxQueue;
+    private final Map<Priority, Long> maxWaitMillis = new EnumMap<>(Priority.class);
+    private final MeterRegistry meterRegistry;
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+
+    // 以下状态都在 synchronized (this) 内访问
+    private int available;
+    private long sequence;
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing((Waiter w) -> w.priority).thenComparingLong(w -> w.seq));
+
+    private static final class Waiter {
+        private final Priority priority;
+        private final long seq;
+        private final CompletableFuture<Void> granted = new CompletableFuture<>();
+
+        Waiter(Priority priority, long seq) {
+            this.priority = priority;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * 一个生成名额，用完必须 close（可重复 close）
+     */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) release();
+        }
+    }
+
+    public LlmScheduler(@Value("${llm.scheduler.max-concurrency:2}") int maxConcurrency,
+                        @Value("${llm.scheduler.max-queue:32}") int maxQueue,
+                        @Value("${llm.scheduler.max-wait-ms.interactive:20000}") long interactiveWaitMs,
+                        @Value("${llm.scheduler.max-wait-ms.preprocess:3000}") long preprocessWaitMs,
+                        @Value("${llm.scheduler.max-wait-ms.background:60000}") long backgroundWaitMs,
+                        MeterRegistry meterRegistry) {
+        this.available = maxConcurrency;
+        this.maxQueue = maxQueue;
+        this.meterRegistry = meterRegistry;
+        maxWaitMillis.put(Priority.INTERACTIVE, interactiveWaitMs);
+        maxWaitMillis.put(Priority.PREPROCESS, preprocessWaitMs);
+        maxWaitMillis.put(Priority.BACKGROUND, backgroundWaitMs);
+
+        Gauge.builder("llm.scheduler.in.flight", this, s -> maxConcurrency - s.available()).register(meterRegistry);
+        for (Priority p : Priority.values()) {
+            String tag = p.name().toLowerCase();
+            Gauge.builder("llm.scheduler.queue.depth", this, s -> s.queueDepth(p)).tag("priority", tag).register(meterRegistry);
+            waitTimers.put(p, Timer.builder("llm.scheduler.wait").tag("priority", tag).register(meterRegistry));
+        }
+    }
+
+    /**
+     * 占用一个名额执行同步调用
+     */
+    public <T> T call(Priority priority, Supplier<T> call) {
+        try (Permit ignored = acquire(priority)) {
+            return call.get();
+        }
+    }
+
+    /**
+     * 流式调用：订阅时排队取名额，流结束、出错或被取消时归还
+     */
+    public <T> Flux<T> stream(Priority priority, Supplier<Flux<T>> stream) {
+        return Flux.using(() -> acquire(priority), permit -> stream.get(), Permit::close);
+    }
+
+    public Permit acquire(Priority priority) {
+        long start = System.nanoTime();
+        Waiter waiter;
+        synchronized (this) {
+            if (available > 0 && waiters.isEmpty()) {
+                available--;
+                waitTimers.get(priority).record(0, TimeUnit.NANOSECONDS);
+                return new Permit();
+            }
+            if (waiters.size() >= maxQueue) shedOrReject(priority);
+            waiter = new Waiter(priority, sequence++);
+            waiters.add(waiter);
+        }
+
+        try {
+            waiter.granted.get(maxWaitMillis.get(priority), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            synchronized (this) {
+                if (waiters.remove(waiter)) throw reject(priority, "timeout");
+            }
+            // 已不在队列里：分配与挤出都在锁内完成，此时结果已经确定。
+            // 同一时刻被挤出队列的不能当成拿到了名额，否则归还时 available 会超过上限
+            if (waiter.granted.isCompletedExceptionally()) throw (LlmOverloadedException) waiter.granted.exceptionNow();
+            // 超时的同一时刻恰好拿到了名额，照常执行
+        } catch (ExecutionException e) {
+            // 被更高优先级的请求挤出队列
+            throw (LlmOverloadedException) e.getCause();
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                // 已经分到的名额还回去；被挤出队列的本来就没有名额
+                if (!waiters.remove(waiter) && !waiter.granted.isCompletedExceptionally()) release();
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待模型调度时被中断", e);
+        }
+        waitTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit();
+    }
+
+    /**
+     * 队列已满：有比新请求优先级更低的等待者就挤掉其中最晚来的一个，否则拒绝新请求
+     */
+    private void shedOrReject(Priority priority) {
+        Waiter victim = null;
+        for (Waiter w : waiters) {
+            if (w.priority.compareTo(priority) > 0
+                    && (victim == null || w.priority.compareTo(victim.priority) > 0
+                    || w.priority == victim.priority && w.seq > victim.seq)) {
+                victim = w;
+            }
+        }
+        if (victim == null) throw reject(priority, "queue-full");
+        waiters.remove(victim);
+        victim.granted.completeExceptionally(reject(victim.priority, "shed"));
+    }
+
+    private LlmOverloadedException reject(Priority priority, String reason) {
+        meterRegistry.counter("llm.scheduler.rejected", "priority", priority.name().toLowerCase(), "reason", reason).increment();
+        log.warn("llm.scheduler.rejected priority={} reason={}", priority, reason);
+        return new LlmOverloadedException("模型服务繁忙（" + priority + ", " + reason + "），请稍后再试");
+    }
+
+    private synchronized void release() {
+        Waiter next = waiters.poll();
+        if (next != null) {
+            next.granted.complete(null);
+        } else {
+            available++;
+        }
+    }
+
+    public synchronized int available() {
+        return available;
+    }
+
+    public synchronized int queueDepth(Priority priority) {
+        int n = 0;
+        for (Waiter w : waiters) if (w.priority == priority) n++;
+        return n;
+    }
+
+    public synchronized int queueDepth() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.interviewer_controller.service;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 把 Spring AI 的过滤表达式（SearchRequest.withFilterExpression）编译成对文档 metadata 的判断，
+ * 支持 EQ/NE/GT/GTE/LT/LTE/IN/NIN 以及 AND/OR/NOT 组合
+ */
+final class MetadataFilter {
+
+    private MetadataFilter() {
+    }
+
+    static Predicate<Map<String, Object>> compile(Filter.Expression expression) {
+        return switch (expression.type()) {
+            case AND -> compileOperand(expression.left()).and(compileOperand(expression.right()));
+            case OR -> compileOperand(expression.left()).or(compileOperand(expression.right()));
+            case NOT -> compileOperand(expression.left()).negate();
+            default -> comparison(expression);
+        };
+    }
+
+    private static Predicate<Map<String, Object>> compileOperand(Filter.Operand operand) {
+        if (operand instanceof Filter.Expression e) return compile(e);
+        if (operand instanceof Filter.Group g) return compile(g.content());
+        throw new IllegalArgumentException("不支持的过滤条件: " + operand);
+    }
+
+    private static Predicate<Map<String, Object>> comparison(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key) || !(expression.right() instanceof Filter.Value value)) {
+            throw new IllegalArgumentException("过滤条件的左边应为字段名、右边应为值: " + expression);
+        }
+        String field = unquote(key.key());
+        Object expected = value.value();
+        return switch (expression.type()) {
+            case EQ -> metadata -> valueEquals(metadata.get(field), expected);
+            case NE -> metadata -> !valueEquals(metadata.get(field), expected);
+            case GT -> metadata -> compare(metadata.get(field), expected, c -> c > 0);
+            case GTE -> metadata -> compare(metadata.get(field), expected, c -> c >= 0);
+            case LT -> metadata -> compare(metadata.get(field), expected, c -> c < 0);
+            case LTE -> metadata -> compare(metadata.get(field), expected, c -> c <= 0);
+            case IN -> metadata -> asList(expected).stream().anyMatch(v -> valueEquals(metadata.get(field), v));
+            case NIN -> metadata -> asList(expected).stream().noneMatch(v -> valueEquals(metadata.get(field), v));
+            default -> throw new IllegalArgumentException("不支持的比较运算: " + expression.type());
+        };
+    }
+
+    // 文本解析出来的字段名可能带引号
+    private static String unquote(String key) {
+        if (key.length() >= 2 && (key.startsWith("\"") && key.endsWith("\"") || key.startsWith("'") && key.endsWith("'"))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    private static boolean valueEquals(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number b) return a.doubleValue() == b.doubleValue();
+        return Objects.equals(actual == null ? null : actual.toString(), expected == null ? null : expected.toString());
+    }
+
+    /**
+     * 数字按数值比较，其余按字符串比较；字段缺失时任何比较都不成立
+     */
+    private static boolean compare(Object actual, Object expected, IntPredicate test) {
+        if (actual == null || expected == null) return false;
+        if (actual instanceof Number a && expected instanceof Number b) return test.test(Double.compare(a.doubleValue(), b.doubleValue()));
+        return test.test(actual.toString().compareTo(expected.toString()));
+    }
+
+    private static List<?> asList(Object value) {
+        if (value instanceof Collection<?> c) return List.copyOf(c);
+        return List.of(value);
+    }
+}
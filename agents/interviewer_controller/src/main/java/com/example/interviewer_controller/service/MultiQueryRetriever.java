@@ -0,0 +1,100 @@
+package com.example.interviewer_controller.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * 多路向量检索：一批查询词只发起一次批量 Embedding 请求，随后并发执行各路相似度搜索，
+ * 结果按查询词原顺序返回，由调用方按优先级挑题
+ */
+@Slf4j
+@Service
+public class MultiQueryRetriever {
+
+    // 同时在途的向量库搜索数上限，避免一次性把几十路请求压到向量库上（命中检索缓存的不占名额）
+    private static final int MAX_PARALLEL_SEARCHES = 8;
+
+    private final CachingVectorStore vectorStore;
+    private final BatchingEmbeddingModel embeddingModel;
+    private final ExecutorService executor;
+    private final StageMetrics stageMetrics;
+    private final Semaphore searchPermits = new Semaphore(MAX_PARALLEL_SEARCHES);
+
+    public MultiQueryRetriever(CachingVectorStore vectorStore, BatchingEmbeddingModel embeddingModel,
+                               @Qualifier("turnExecutor") ExecutorService executor, StageMetrics stageMetrics) {
+        this.vectorStore = vectorStore;
+        this.embeddingModel = embeddingModel;
+        this.executor = executor;
+        this.stageMetrics = stageMetrics;
+    }
+
+    /**
+     * 单路检索（每一路都计入 interview.stage{stage=vector_search}，缓存命中的也算）
+     */
+    public List<Document> search(String query, int topK) {
+        return stageMetrics.time(StageMetrics.VECTOR_SEARCH, () -> vectorStore.similaritySearch(request(query, topK)));
+    }
+
+    private static SearchRequest request(String query, int topK) {
+        return SearchRequest.query(query).withTopK(topK);
+    }
+
+    /**
+     * 多路检索，返回值与 queries 一一对应；任一路失败时取消其余检索并抛出异常
+     */
+    public List<List<Document>> searchAll(List<String> queries, int topK) {
+        if (queries.isEmpty()) return new ArrayList<>();
+        if (queries.size() == 1) return List.of(search(queries.get(0), topK));
+
+        // 检索结果已缓存的查询不需要向量，也不会打到向量库，只为未命中的部分批量向量化
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String query : queries) {
+            if (!vectorStore.isCached(request(query, topK))) uncached.add(query);
+        }
+        long start = System.currentTimeMillis();
+        Map<String, float[]> prefetched = embeddingModel.prefetch(uncached);
+        long embedMs = System.currentTimeMillis() - start;
+
+        List<Future<List<Document>>> futures = new ArrayList<>(queries.size());
+        try {
+            for (String query : queries) {
+                if (!uncached.contains(query)) {
+                    futures.add(executor.submit(() -> search(query, topK)));
+                    continue;
+                }
+                futures.add(executor.submit(() -> {
+                    searchPermits.acquire();
+                    try {
+                        return embeddingModel.withPrefetched(prefetched, () -> search(query, topK));
+                    } finally {
+                        searchPermits.release();
+                    }
+                }));
+            }
+            List<List<Document>> results = new ArrayList<>(queries.size());
+            for (Future<List<Document>> future : futures) results.add(future.get());
+
+            log.debug("vector.multi queries={} uncached={} embedMs={} elapsedMs={}",
+                    queries.size(), uncached.size(), embedMs, System.currentTimeMillis() - start);
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("多路检索被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("多路检索失败", e.getCause());
+        } finally {
+            for (Future<List<Document>> future : futures) future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.interviewer_controller.service;
+
+import com.example.interviewer_controller.model.EntityQuestionIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 实体 -> 候选题 预计算索引的加载与构建
+ * 构建：对图谱全部实体（邻居本身也是实体）做一遍多路检索，把排好序的候选题写成索引文件；
+ * 运行时：命中索引的实体直接取内存结果，未收录的实体由调用方回退到实时向量检索。
+ * 图谱或题库更新后需重新构建（POST /api/graph/question-index）。
+ */
+@Slf4j
+@Service
+public class QuestionIndexService {
+
+    // 一次多路检索的关键词数，避免单次批量向量化请求过大
+    private static final int BUILD_BATCH_SIZE = 64;
+
+    private final GraphKnowledgeService graphService;
+    private final MultiQueryRetriever retriever;
+    private final AtomicReference<EntityQuestionIndex> index = new AtomicReference<>();
+
+    @Value("${question.index.path}")
+    private String indexPath;
+
+    // 每个实体保留的候选题数
+    @Value("${question.index.depth:20}")
+    private int depth;
+
+    public QuestionIndexService(GraphKnowledgeService graphService, MultiQueryRetriever retriever) {
+        this.graphService = graphService;
+        this.retriever = retriever;
+    }
+
+    @PostConstruct
+    public void init() {
+        Path file = Paths.get(indexPath);
+        if (!Files.exists(file)) {
+            // 全部走实时检索，可调用 POST /api/graph/question-index 生成
+            log.info("question.index.missing file={}", file);
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            EntityQuestionIndex loaded = EntityQuestionIndex.load(file);
+            index.set(loaded);
+            log.info("question.index.load entities={} questions={} elapsedMs={}",
+                    loaded.entityCount(), loaded.questionCount(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("question.index.load.failed file={} error={}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 实体的前 topK 道候选题；未加载索引或索引里没有该实体时返回 null
+     */
+    public List<Document> candidates(String entity, int topK) {
+        EntityQuestionIndex current = index.get();
+        return current == null ? null : current.candidates(entity, topK);
+    }
+
+    /**
+     * 重新构建索引、写文件并原子替换
+     */
+    public synchronized Map<String, Object> build() throws IOException {
+        long start = System.currentTimeMillis();
+        List<String> entities = graphService.getAllEntities();
+        Map<String, List<Document>> candidates = new LinkedHashMap<>();
+        for (int from = 0; from < entities.size(); from += BUILD_BATCH_SIZE) {
+            List<String> batch = entities.subList(from, Math.min(from + BUILD_BATCH_SIZE, entities.size()));
+            List<List<Document>> results = retriever.searchAll(batch, depth);
+            for (int i = 0; i < batch.size(); i++) candidates.put(batch.get(i), results.get(i));
+            log.info("question.index.build.progress searched={} total={}", candidates.size(), entities.size());
+        }
+
+        EntityQuestionIndex built = EntityQuestionIndex.build(candidates, depth);
+        Path file = Paths.get(indexPath);
+        built.write(file);
+        index.set(built);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("entities", built.entityCount());
+        report.put("questions", built.questionCount());
+        report.put("depth", depth);
+        report.put("bytes", Files.size(file));
+        report.put("path", file.toAbsolutePath().toString());
+        report.put("elapsedMs", System.currentTimeMillis() - start);
+        log.info("question.index.build {}", report);
+        return report;
+    }
+
+    public Map<String, Object> getStatus() {
+        EntityQuestionIndex current = index.get();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("loaded", current != null);
+        if (current != null) {
+            status.put("entities", current.entityCount());
+            status.put("questions", current.questionCount());
+            status.put("depth", current.depth());
+            status.put("builtAt", Instant.ofEpochMilli(current.builtAt()).toString());
+        }
+        return status;
+    }
+}
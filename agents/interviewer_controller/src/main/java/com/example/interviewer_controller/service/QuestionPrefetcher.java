@@ -0,0 +1,149 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * 下一题的投机预取：每轮抛出新题后，面试者作答的 30~90 秒里服务端原本是空闲的。
+ * 这里趁这段时间按"面试者大概率会围绕刚问的知识点作答"预测下一轮的实体，
+ * 提前检索它的图谱邻居与下一个大纲关键词的候选题，结果放在会话的预取槽里：
+ *   回答到达后提取出的实体与预测一致 -> 直接用预取的候选，检索不再在关键路径上（命中）
+ *   不一致 -> 丢弃，照常实时检索（未命中）
+ * 预取只读检索结果，判重挑题仍在本轮的主线程里进行。命中率通过 interview.prefetch 指标与状态接口查看。
+ */
+@Slf4j
+@Service
+public class QuestionPrefetcher {
+
+    private final GraphKnowledgeService graphService;
+    private final ExecutorService executor;
+
+    private final Counter started;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter outlineHits;
+
+    /**
+     * 一次预取：预测的实体、下一个大纲关键词，以及检索中（或已完成）的候选题
+     */
+    record Prepared(String entity, String outlineKeyword, CompletableFuture<Map<String, List<Document>>> candidates) {
+    }
+
+    public QuestionPrefetcher(GraphKnowledgeService graphService,
+                              @Qualifier("turnExecutor") ExecutorService executor,
+                              MeterRegistry meterRegistry) {
+        this.graphService = graphService;
+        this.executor = executor;
+        this.started = meterRegistry.counter("interview.prefetch.started");
+        this.hits = meterRegistry.counter("interview.prefetch", "result", "hit");
+        this.misses = meterRegistry.counter("interview.prefetch", "result", "miss");
+        this.outlineHits = meterRegistry.counter("interview.prefetch.outline.hit");
+    }
+
+    /**
+     * 本轮抛出新题后调用：替换会话里旧的预取，后台检索 entity 的邻居与 outlineKeyword 的候选题
+     * @param entity         刚问的题目所属的实体（面试者回答中最可能出现的实体），可为 null
+     * @param outlineKeyword 下一个大纲关键词，没有时为 null
+     * @param loader         关键词 -> 候选题 的检索方法（纯读操作）
+     */
+    void prepare(InterviewSession session, String entity, String outlineKeyword,
+                 Function<List<String>, Map<String, List<Document>>> loader) {
+        discard(session);
+        if (entity == null && outlineKeyword == null) return;
+
+        CompletableFuture<Map<String, List<Document>>> candidates = CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            List<String> keys = new ArrayList<>(entity == null ? List.of() : graphService.findNeighbors(entity));
+            if (outlineKeyword != null && !keys.contains(outlineKeyword)) keys.add(outlineKeyword);
+            Map<String, List<Document>> result = keys.isEmpty() ? Map.of() : loader.apply(keys);
+            log.debug("prefetch.ready entity={} keys={} elapsedMs={}", entity, keys.size(), System.currentTimeMillis() - start);
+            return result;
+        }, executor);
+        session.setPrepared(new Prepared(entity, outlineKeyword, candidates));
+        started.increment();
+    }
+
+    /**
+     * 回答到达后取预取结果：实体与预测一致且预取成功时返回 neighbors 各自的候选题（命中），否则返回 null（未命中）
+     * 预取尚未完成时等待它完成，已经在跑的检索不必重来一遍
+     */
+    Map<String, List<Document>> take(InterviewSession session, String entity, List<String> neighbors) {
+        Prepared prepared = session.getPrepared();
+        if (prepared == null || prepared.entity() == null) return null;
+
+        Map<String, List<Document>> result = null;
+        if (sameEntity(prepared.entity(), entity)) {
+            Map<String, List<Document>> candidates = join(prepared);
+            if (candidates != null && candidates.keySet().containsAll(neighbors)) {
+                result = new LinkedHashMap<>();
+                for (String neighbor : neighbors) result.put(neighbor, candidates.get(neighbor));
+            }
+        }
+        if (result != null) {
+            hits.increment();
+            log.debug("prefetch.hit entity={}", entity);
+        } else {
+            misses.increment();
+            log.debug("prefetch.miss predicted={} actual={}", prepared.entity(), entity);
+        }
+        return result;
+    }
+
+    /**
+     * 切换大纲关键词时取预取好的候选（与实体预测无关），没有时返回 null
+     */
+    List<Document> outline(InterviewSession session, String keyword) {
+        Prepared prepared = session.getPrepared();
+        if (prepared == null || !Objects.equals(prepared.outlineKeyword(), keyword)) return null;
+        Map<String, List<Document>> candidates = join(prepared);
+        List<Document> docs = candidates == null ? null : candidates.get(keyword);
+        if (docs != null) outlineHits.increment();
+        return docs;
+    }
+
+    /**
+     * 清空会话的预取槽（本轮已用完，或面试结束）
+     */
+    void discard(InterviewSession session) {
+        Prepared prepared = session.getPrepared();
+        if (prepared != null) {
+            prepared.candidates().cancel(false);
+            session.setPrepared(null);
+        }
+    }
+
+    private static Map<String, List<Document>> join(Prepared prepared) {
+        try {
+            return prepared.candidates().join();
+        } catch (Exception e) {
+            // 改为实时检索
+            log.warn("prefetch.failed error={}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean sameEntity(String predicted, String actual) {
+        return actual != null && predicted.trim().equalsIgnoreCase(actual.trim());
+    }
+
+    public Map<String, Object> getStatus() {
+        double hit = hits.count();
+        double total = hit + misses.count();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("started", (long) started.count());
+        status.put("hits", (long) hit);
+        status.put("misses", (long) misses.count());
+        status.put("hitRate", total == 0 ? 0.0 : hit / total);
+        status.put("outlineHits", (long) outlineHits.count());
+        return status;
+    }
+}
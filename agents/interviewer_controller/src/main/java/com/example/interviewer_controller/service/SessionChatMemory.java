@@ -0,0 +1,195 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 带内存统计与滚动摘要的对话记忆（替代 InMemoryChatMemory）：
+ * 1. 按会话记录消息并累计估算字节数，会话的生命周期由 InterviewSessionManager 管理，淘汰时一并 clear
+ * 2. 只保留最近 keepMessages 条原文，更早的消息在后台折叠进一段增量更新的摘要，
+ *    MessageChatMemoryAdvisor 取记忆时拿到的是"摘要 + 最近几轮原文"，每轮的提示词长度基本不随面试轮数增长
+ * 摘要在每轮写入记忆后异步生成，不占用本轮的响应时间；生成失败时原文保留，下一轮再试。
+ */
+@Slf4j
+public class SessionChatMemory implements ChatMemory {
+
+    // 每条消息的对象开销估算（Message 对象、metadata Map、列表槽位）
+    private static final long MESSAGE_OVERHEAD_BYTES = 96;
+
+    /**
+     * 把较早的对话折叠进摘要
+     */
+    @FunctionalInterface
+    public interface Summarizer {
+        /**
+         * @param previousSummary 之前的摘要（首次为空串）
+         * @param folded          本次要折叠进摘要的消息，按时间顺序
+         * @return 新的完整摘要
+         */
+        String summarize(String previousSummary, List<Message> folded);
+    }
+
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+    private final Summarizer summarizer;
+    private final Executor executor;
+    private final int keepMessages;
+    private final int foldMessages;
+    private DistributionSummary promptChars;
+
+    private static final class Conversation {
+        private final List<Message> messages = new ArrayList<>();
+        private String summary = "";
+        private boolean summarizing;
+        private long bytes;
+    }
+
+    /**
+     * 不做摘要，完整保留原文
+     */
+    public SessionChatMemory() {
+        this(null, null, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * @param keepMessages 保留原文的最近消息数（一问一答为 2 条）
+     * @param foldMessages 原文超出 keepMessages 多少条时触发一次折叠，攒一批再折叠可以减少摘要调用次数
+     */
+    public SessionChatMemory(Summarizer summarizer, Executor executor, int keepMessages, int foldMessages) {
+        this.summarizer = summarizer;
+        this.executor = executor;
+        this.keepMessages = keepMessages;
+        this.foldMessages = Math.max(1, foldMessages);
+    }
+
+    public void bindMetrics(MeterRegistry registry) {
+        promptChars = DistributionSummary.builder("chat.memory.prompt.chars")
+                .description("每次取出的记忆（摘要 + 原文）总字符数").register(registry);
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        Conversation conversation = conversations.computeIfAbsent(conversationId, k -> new Conversation());
+        List<Message> toFold = null;
+        synchronized (conversation) {
+            for (Message m : messages) {
+                conversation.messages.add(m);
+                conversation.bytes += estimateBytes(m);
+            }
+            if (summarizer != null && !conversation.summarizing
+                    && conversation.messages.size() >= keepMessages + foldMessages) {
+                conversation.summarizing = true;
+                toFold = List.copyOf(conversation.messages.subList(0, conversation.messages.size() - keepMessages));
+            }
+        }
+        if (toFold != null) {
+            List<Message> batch = toFold;
+            try {
+                executor.execute(() -> fold(conversationId, conversation, batch));
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中，本轮不折叠
+                synchronized (conversation) {
+                    conversation.summarizing = false;
+                }
+            }
+        }
+    }
+
+    private void fold(String conversationId, Conversation conversation, List<Message> batch) {
+        long start = System.currentTimeMillis();
+        String previous;
+        synchronized (conversation) {
+            previous = conversation.summary;
+        }
+        try {
+            String summary = summarizer.summarize(previous, batch);
+            int summaryLength;
+            synchronized (conversation) {
+                // 只会在末尾追加消息，折叠的这一批仍在列表开头
+                conversation.messages.subList(0, batch.size()).clear();
+                conversation.summary = summary == null ? "" : summary.trim();
+                long bytes = 2L * conversation.summary.length();
+                for (Message m : conversation.messages) bytes += estimateBytes(m);
+                conversation.bytes = bytes;
+                summaryLength = conversation.summary.length();
+            }
+            log.info("memory.summarize conversationId={} folded={} summaryChars={} elapsedMs={}",
+                    conversationId, batch.size(), summaryLength, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 保留原文，下轮再试
+            log.warn("memory.summarize.failed conversationId={} error={}", conversationId, e.getMessage());
+        } finally {
+            synchronized (conversation) {
+                conversation.summarizing = false;
+            }
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null) return List.of();
+        List<Message> result = new ArrayList<>();
+        synchronized (conversation) {
+            if (!conversation.summary.isEmpty()) {
+                result.add(new SystemMessage("【此前面试过程摘要】\n" + conversation.summary));
+            }
+            int size = conversation.messages.size();
+            result.addAll(conversation.messages.subList(Math.max(0, size - lastN), size));
+        }
+        if (promptChars != null) {
+            long chars = 0;
+            for (Message m : result) chars += m.getContent() == null ? 0 : m.getContent().length();
+            promptChars.record(chars);
+        }
+        return result;
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        conversations.remove(conversationId);
+    }
+
+    /**
+     * 只保留给定会话的记忆，其余一律清掉（兜底清理淘汰后才写入的记忆）
+     */
+    public void retainAll(Set<String> conversationIds) {
+        conversations.keySet().retainAll(conversationIds);
+    }
+
+    public String summary(String conversationId) {
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null) return "";
+        synchronized (conversation) {
+            return conversation.summary;
+        }
+    }
+
+    public long bytes(String conversationId) {
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null) return 0;
+        synchronized (conversation) {
+            return conversation.bytes;
+        }
+    }
+
+    public int size() {
+        return conversations.size();
+    }
+
+    static long estimateBytes(Message message) {
+        String content = message.getContent();
+        return MESSAGE_OVERHEAD_BYTES + (content == null ? 0 : 2L * content.length());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按会话串行执行面试轮次（每个会话一个邮箱）：
+ * 1. 同一会话的轮次按提交顺序逐个执行，重复点击、客户端重试不会并发修改同一个 InterviewSession
+ * 2. 不同会话各自在自己的虚拟线程上运行，互不等待，没有全局锁
+ * 3. 每个会话最多 max-queued-turns 轮（含正在执行的一轮），超出直接抛 TurnRejectedException
+ * 邮箱的入队与调度只用 CAS，不加锁；邮箱空闲后自动关闭并从表中移除。
+ */
+@Service
+public class SessionTurnExecutor {
+
+    // 邮箱已关闭的标记，之后的提交会换一个新邮箱
+    private static final int CLOSED = -1;
+
+    private final ExecutorService executor;
+    private final int maxQueuedTurns;
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public SessionTurnExecutor(@Qualifier("turnExecutor") ExecutorService executor,
+                               @Value("${interview.session.max-queued-turns:2}") int maxQueuedTurns,
+                               MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.maxQueuedTurns = maxQueuedTurns;
+        Gauge.builder("interview.turns.busy.sessions", mailboxes, Map::size).register(meterRegistry);
+        FunctionCounter.builder("interview.turns.rejected", rejected, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * 把一轮对话排进会话的邮箱，返回该轮的结果；队列已满时立即抛出 TurnRejectedException
+     */
+    public <T> CompletableFuture<T> submit(String sessionId, Supplier<T> turn) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            if (result.isDone()) return; // 排队期间已被调用方取消
+            try {
+                result.complete(turn.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(sessionId, Mailbox::new);
+            int before = mailbox.pending.getAndUpdate(n -> n == CLOSED || n >= maxQueuedTurns ? n : n + 1);
+            if (before == CLOSED) {
+                // 正在关闭的旧邮箱，等它从表中移除后重试
+                Thread.onSpinWait();
+                continue;
+            }
+            if (before >= maxQueuedTurns) {
+                rejected.incrementAndGet();
+                throw new TurnRejectedException(sessionId, maxQueuedTurns);
+            }
+            mailbox.queue.offer(task);
+            // 0 -> 1 的提交者负责启动消费
+            if (before == 0) executor.execute(mailbox::drain);
+            return result;
+        }
+    }
+
+    /**
+     * 阻塞执行一轮（同步接口使用），异常原样抛出
+     */
+    public <T> T call(String sessionId, Supplier<T> turn) {
+        try {
+            return submit(sessionId, turn).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    public int busySessions() {
+        return mailboxes.size();
+    }
+
+    private final class Mailbox {
+        private final String sessionId;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        // 已入队（含正在执行）的轮次数
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Mailbox(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        void drain() {
+            do {
+                Runnable task;
+                // 提交者先计数再入队，计数可见时任务可能还差一步入队
+                while ((task = queue.poll()) == null) Thread.onSpinWait();
+                task.run();
+            } while (pending.decrementAndGet() > 0);
+
+            // 没有新的提交就关闭邮箱；若恰好有新提交（0 -> 1），由那个提交者启动新一轮消费
+            if (pending.compareAndSet(0, CLOSED)) mailboxes.remove(sessionId, this);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.interviewer_controller.service;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个语音引擎（STT 或 TTS）的调用入口：共用一个带连接池的 JDK HttpClient，
+ * 每个引擎各自限制同时在途的请求数。HTTP/1.1 下一个在途请求占一条连接，
+ * 所以这个上限也就是该引擎的连接数上限，空闲连接由 HttpClient 保持复用，每轮不必重新建立 TCP 连接。
+ */
+public class SpeechEngineClient {
+
+    private final HttpClient httpClient;
+    private final String name;
+    private final Semaphore connections;
+    private final int maxConnections;
+    private final Duration requestTimeout;
+
+    /**
+     * @param maxConnections 同时在途的请求（连接）数上限，超出的调用排队等待
+     * @param requestTimeout 单次请求从发出到收完响应的期限，排队等待连接也计入其中
+     */
+    public SpeechEngineClient(HttpClient httpClient, String name, int maxConnections, Duration requestTimeout) {
+        this.httpClient = httpClient;
+        this.name = name;
+        this.maxConnections = maxConnections;
+        this.connections = new Semaphore(maxConnections, true);
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * 发送请求；非 2xx 响应按 IOException 处理
+     */
+    public <T> T send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        if (!connections.tryAcquire(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IOException(name + " 引擎繁忙：" + maxConnections + " 个连接都在使用中，等待超时");
+        }
+        try {
+            Duration remaining = requestTimeout.minusNanos(System.nanoTime() - start);
+            HttpResponse<T> response = httpClient.send(
+                    request.timeout(remaining.isNegative() || remaining.isZero() ? Duration.ofMillis(1) : remaining).build(),
+                    handler);
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException(name + " 引擎返回 HTTP " + response.statusCode());
+            }
+            return response.body();
+        } finally {
+            connections.release();
+        }
+    }
+
+    public int inFlight() {
+        return maxConnections - connections.availablePermits();
+    }
+
+    public int maxConnections() {
+        return maxConnections;
+    }
+}
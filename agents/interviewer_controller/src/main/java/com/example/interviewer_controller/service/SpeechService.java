@@ -1,23 +1,44 @@
 package com.example.interviewer_controller.service;
 
+import com.example.interviewer_controller.model.MultipartBody;
+import com.example.interviewer_controller.model.SentenceSplitter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
-public class SpeechService {
+public class SpeechService implements SttEngine {
 
-    private final RestTemplate restTemplate;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // STT / TTS 各自的连接上限，底层共用一个保持长连接的 HttpClient
+    private final SpeechEngineClient sttClient;
+    private final SpeechEngineClient ttsClient;
+    private final TtsAudioCache ttsCache;
+    private final StageMetrics stageMetrics;
 
     @Value("${engines.stt.url}")
     private String sttUrl;
@@ -25,27 +46,57 @@ public class SpeechService {
     @Value("${engines.tts.url}")
     private String ttsUrl;
 
-    public SpeechService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    // 逐句合成时同时在途的 TTS 请求数上限
+    @Value("${engines.tts.max-concurrency:3}")
+    private int ttsMaxConcurrency;
+
+    public SpeechService(@Qualifier("sttClient") SpeechEngineClient sttClient,
+                         @Qualifier("ttsClient") SpeechEngineClient ttsClient,
+                         TtsAudioCache ttsCache, StageMetrics stageMetrics) {
+        this.sttClient = sttClient;
+        this.ttsClient = ttsClient;
+        this.ttsCache = ttsCache;
+        this.stageMetrics = stageMetrics;
+    }
+
+    /**
+     * 启动后在后台预热固定话术的音频：整段（阻塞接口整段合成）与逐句（流式接口按句合成）都缓存一份，
+     * 这些轮次之后不再有任何 TTS 往返；TTS 服务未启动时预热失败不影响使用
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        Thread.ofVirtual().name("tts-prewarm").start(() -> {
+            long start = System.currentTimeMillis();
+            Set<String> texts = new LinkedHashSet<>();
+            for (String phrase : InterviewService.FIXED_REPLIES) {
+                texts.add(phrase);
+                SentenceSplitter splitter = new SentenceSplitter();
+                texts.addAll(splitter.push(phrase));
+                String rest = splitter.flush();
+                if (!rest.isBlank()) texts.add(rest);
+            }
+            int ready = 0;
+            for (String text : texts) {
+                if (textToSpeech(text).length > 0) ready++;
+            }
+            log.info("tts.cache.warmup ready={} total={} elapsedMs={}", ready, texts.size(), System.currentTimeMillis() - start);
+        });
     }
 
     /**
      * 调用 Faster-Whisper 将音频转为文字
+     * 上传的音频从 Resource 的输入流直接转发（multipart 临时文件 -> socket），不在堆上缓冲整段音频
      */
     public String speechToText(Resource audioResource) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("file", audioResource);
-            body.add("model", "base");
-
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-
-            // 调用之前测试过的 8000 端口接口
-            Map response = restTemplate.postForObject(sttUrl, requestEntity, Map.class);
-            return response != null ? (String) response.get("text") : "";
+            String filename = audioResource.getFilename() == null ? "audio" : audioResource.getFilename();
+            return transcribe(filename, audioResource.contentLength(), () -> {
+                try {
+                    return audioResource.getInputStream();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
         } catch (Exception e) {
             log.error("STT 转换失败", e);
             return "（语音识别失败）";
@@ -53,15 +104,84 @@ public class SpeechService {
     }
 
     /**
-     * 调用 Edge-TTS 桥接服务将文字转为音频字节
+     * 识别一段内存中的音频（WebSocket 边录边传时的一个窗口），失败时抛出 IllegalStateException
+     */
+    @Override
+    public String transcribe(byte[] audio, String filename) {
+        try {
+            return transcribe(filename, audio.length, () -> new ByteArrayInputStream(audio));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("STT 调用被中断", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("STT 转换失败: " + e.getMessage(), e);
+        }
+    }
+
+    private String transcribe(String filename, long size, Supplier<InputStream> content) throws IOException, InterruptedException {
+        MultipartBody body = new MultipartBody()
+                .file("file", filename, "application/octet-stream", size, content)
+                .field("model", "base");
+
+        // 调用之前测试过的 8000 端口接口
+        long start = System.nanoTime();
+        String response;
+        try {
+            response = sttClient.send(HttpRequest.newBuilder(URI.create(sttUrl))
+                            .header("Content-Type", body.contentType())
+                            .POST(body.publisher()),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } finally {
+            stageMetrics.record(StageMetrics.STT, start);
+        }
+        JsonNode text = MAPPER.readTree(response).get("text");
+        return text != null ? text.asText() : "";
+    }
+
+    /**
+     * 将文字转为音频字节：先查 TTS 音频缓存，未命中再调用 Edge-TTS（失败时返回空数组，不缓存）
      */
     public byte[] textToSpeech(String text) {
+        return ttsCache.get(text, () -> synthesize(text));
+    }
+
+    /**
+     * 调用 Edge-TTS 桥接服务将文字转为音频字节（只有真正请求引擎的合成计入 interview.stage{stage=tts}，缓存命中见 tts.cache.*）
+     */
+    private byte[] synthesize(String text) {
+        long start = System.nanoTime();
         try {
             // 调用之前测试过的 5000 端口接口
-            return restTemplate.getForObject(ttsUrl + "?text=" + text, byte[].class);
+            URI uri = URI.create(ttsUrl + "?text=" + URLEncoder.encode(text, StandardCharsets.UTF_8));
+            return ttsClient.send(HttpRequest.newBuilder(uri).GET(), HttpResponse.BodyHandlers.ofByteArray());
         } catch (Exception e) {
             log.error("TTS 转换失败", e);
             return new byte[0];
+        } finally {
+            stageMetrics.record(StageMetrics.TTS, start);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 逐句流水线合成：句子一到就发起 TTS，最多 ttsMaxConcurrency 句并行，
+     * 结果按句子原顺序输出，首句合成完即可开始播放，不必等整段回复生成完
+     */
+    public Flux<AudioSegment> textToSpeechPipelined(Flux<String> sentences) {
+        return sentences
+                // 上游是模型的逐字输出，不能因为 TTS 忙而反压住文字推送
+                .onBackpressureBuffer()
+                .index()
+                .flatMapSequential(indexed -> Mono
+                                .fromCallable(() -> new AudioSegment(indexed.getT1().intValue(), indexed.getT2(),
+                                        textToSpeech(indexed.getT2())))
+                                .subscribeOn(Schedulers.boundedElastic()),
+                        ttsMaxConcurrency)
+                .filter(segment -> segment.audio().length > 0);
+    }
+
+    /**
+     * 一句话的合成结果，seq 为句子序号（从 0 开始）
+     */
+    public record AudioSegment(int seq, String text, byte[] audio) {
+    }
+}
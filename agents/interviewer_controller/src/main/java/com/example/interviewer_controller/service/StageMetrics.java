@@ -0,0 +1,62 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 一轮面试各阶段的耗时，统一记为 interview.stage{stage=...}，带百分位直方图，
+ * 经 /actuator/prometheus 导出后可以按阶段算 p50/p95/p99 和吞吐（计数的增长率）
+ * 阶段：stt / correction / entity / graph / vector_search / compose / report / tts
+ */
+@Component
+public class StageMetrics {
+
+    public static final String STT = "stt";
+    public static final String CORRECTION = "correction";
+    public static final String ENTITY = "entity";
+    public static final String GRAPH = "graph";
+    public static final String VECTOR_SEARCH = "vector_search";
+    public static final String COMPOSE = "compose";
+    public static final String REPORT = "report";
+    public static final String TTS = "tts";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public StageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 执行并计时（抛出异常的调用同样计入）
+     */
+    public <T> T time(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(stage, start);
+        }
+    }
+
+    /**
+     * 记录从 startNanos（System.nanoTime）到现在的耗时，用于跨回调的阶段（如流式生成）
+     */
+    public void record(String stage, long startNanos) {
+        timer(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    Timer timer(String stage) {
+        return timers.computeIfAbsent(stage, s -> Timer.builder("interview.stage")
+                .tag("stage", s)
+                .description("面试单轮各阶段耗时")
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.interviewer_controller.service;
+
+import com.example.interviewer_controller.model.PcmWindower;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * 一段边录边传的语音识别：音频按滚动窗口切开，每凑满一个窗口就立即送去识别，
+ * 录音还没结束时前面的窗口已经识别完了。松手时只剩最后一个不足一窗的尾巴要识别，
+ * 从说完到拿到完整文本的等待时间约等于最后一个窗口的识别时间，而不是整段录音的。
+ * 各窗口并行识别，结果按窗口顺序拼接；某个窗口识别失败时跳过该窗口，其余照常拼接。
+ */
+@Slf4j
+public class StreamingTranscription {
+
+    private final SttEngine engine;
+    private final Executor executor;
+    private final int sampleRate;
+    private final PcmWindower windower;
+    private final Consumer<String> onPartial;
+
+    private final List<CompletableFuture<String>> segments = new ArrayList<>();
+    private long receivedBytes;
+    private int published;
+    private boolean finished;
+
+    /**
+     * @param onPartial 每有窗口识别完成，回调当前已连续识别完的前缀文本（在识别线程上调用）
+     */
+    public StreamingTranscription(SttEngine engine, Executor executor, int sampleRate, int windowMs,
+                                  Consumer<String> onPartial) {
+        this.engine = engine;
+        this.executor = executor;
+        this.sampleRate = sampleRate;
+        // 在窗口最后四分之一里找停顿切分
+        this.windower = new PcmWindower(sampleRate, windowMs, windowMs / 4);
+        this.onPartial = onPartial;
+    }
+
+    /**
+     * 追加一段 PCM（16 位小端、单声道）
+     */
+    public synchronized void append(byte[] pcm) {
+        if (finished) throw new IllegalStateException("录音已结束");
+        receivedBytes += pcm.length;
+        for (byte[] window : windower.push(pcm)) submit(window);
+    }
+
+    /**
+     * 录音结束：识别剩余音频，返回完整文本
+     */
+    public synchronized CompletableFuture<String> finish() {
+        if (!finished) {
+            finished = true;
+            byte[] rest = windower.flush();
+            // 不足 100ms 的尾巴基本只有松手的噪声
+            if (rest.length >= sampleRate / 5) submit(rest);
+        }
+        List<CompletableFuture<String>> all = List.copyOf(segments);
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).thenApply(v -> join(all));
+    }
+
+    /**
+     * 已收到的录音时长（毫秒）
+     */
+    public synchronized long receivedMs() {
+        return receivedBytes / 2 * 1000L / sampleRate;
+    }
+
+    private void submit(byte[] pcm) {
+        int seq = segments.size();
+        CompletableFuture<String> segment = CompletableFuture
+                .supplyAsync(() -> engine.transcribe(PcmWindower.toWav(pcm, sampleRate), "segment-" + seq + ".wav"), executor)
+                .exceptionally(e -> {
+                    log.warn("stt.segment.failed seq={} error={}", seq, e.getMessage());
+                    return "";
+                });
+        segments.add(segment);
+        segment.thenRun(this::publishPartial);
+    }
+
+    private synchronized void publishPartial() {
+        int done = 0;
+        while (done < segments.size() && segments.get(done).isDone()) done++;
+        // 各窗口完成顺序不定，只在连续完成的前缀变长时推送，保证推送的文本只增不减
+        if (done <= published) return;
+        published = done;
+        onPartial.accept(join(segments.subList(0, done)));
+    }
+
+    private static String join(List<CompletableFuture<String>> segments) {
+        StringBuilder text = new StringBuilder();
+        for (CompletableFuture<String> segment : segments) {
+            String part = segment.join().trim();
+            if (part.isEmpty()) continue;
+            // 英文单词之间补空格，中文直接相连
+            if (!text.isEmpty() && isAsciiWord(text.charAt(text.length() - 1)) && isAsciiWord(part.charAt(0))) {
+                text.append(' ');
+            }
+            text.append(part);
+        }
+        return text.toString();
+    }
+
+    private static boolean isAsciiWord(char c) {
+        return c < 128 && Character.isLetterOrDigit(c);
+    }
+}
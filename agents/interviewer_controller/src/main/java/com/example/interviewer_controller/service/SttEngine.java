@@ -0,0 +1,16 @@
+package com.example.interviewer_controller.service;
+
+/**
+ * 语音识别引擎：输入一段完整的音频文件（如 WAV），返回识别出的文字
+ * 线上由 SpeechService 转发给 Faster-Whisper，测试里可以换成本地桩实现
+ */
+@FunctionalInterface
+public interface SttEngine {
+
+    /**
+     * @param audio    音频文件内容
+     * @param filename 文件名（引擎据扩展名判断格式）
+     * @throws IllegalStateException 识别失败
+     */
+    String transcribe(byte[] audio, String filename);
+}
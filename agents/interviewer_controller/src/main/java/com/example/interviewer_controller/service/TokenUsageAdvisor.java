@@ -0,0 +1,66 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * 按模型统计 token 用量：llm.tokens{model, type=prompt|completion}
+ * 挂在 ChatClient 上，同步与流式调用都经过这里，不必在每个调用点单独取 ChatResponse
+ * 流式生成时 Ollama 只在最后一个片段里带用量，其余片段的用量为空，逐片累加即可
+ */
+@Component
+public class TokenUsageAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private final MeterRegistry registry;
+
+    public TokenUsageAdvisor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest request, CallAroundAdvisorChain chain) {
+        AdvisedResponse response = chain.nextAroundCall(request);
+        record(request, response.response());
+        return response;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest request, StreamAroundAdvisorChain chain) {
+        return chain.nextAroundStream(request).doOnNext(response -> record(request, response.response()));
+    }
+
+    private void record(AdvisedRequest request, ChatResponse response) {
+        ChatResponseMetadata metadata = response == null ? null : response.getMetadata();
+        Usage usage = metadata == null ? null : metadata.getUsage();
+        if (usage == null) return;
+        String model = metadata.getModel();
+        if ((model == null || model.isEmpty()) && request.chatOptions() != null) model = request.chatOptions().getModel();
+        if (model == null || model.isEmpty()) model = "unknown";
+        increment(model, "prompt", usage.getPromptTokens());
+        increment(model, "completion", usage.getGenerationTokens());
+    }
+
+    private void increment(String model, String type, Long tokens) {
+        if (tokens == null || tokens <= 0) return;
+        Counter.builder("llm.tokens").tag("model", model).tag("type", type).baseUnit("tokens")
+                .register(registry).increment(tokens);
+    }
+
+    @Override
+    public String getName() {
+        return "TokenUsageAdvisor";
+    }
+
+    // 排在最内层，紧贴模型调用，记到的是模型实际收发的 token
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
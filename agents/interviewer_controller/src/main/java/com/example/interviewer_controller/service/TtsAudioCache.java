@@ -0,0 +1,269 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 按内容寻址的 TTS 音频缓存：欢迎语、结束语、兜底提示等固定话术跨会话逐字重复，
+ * 命中时直接返回音频，不再请求 Edge-TTS
+ * 1. 键为 SHA-256(voice, format, text)，换音色或格式后旧音频自然失效
+ * 2. 内存层：按总字节数做 LRU 淘汰
+ * 3. 磁盘层：每段音频一个文件，读取时 mmap 映射后拷出，命中后提升回内存层；总字节数超限时按 LRU 删除文件
+ * 4. 同一段文本同时未命中时只合成一次，其余调用等待同一结果
+ * 命中/未命中次数注册为 Micrometer 指标（tts.cache.*）。合成失败（空音频）不缓存。
+ */
+@Slf4j
+public class TtsAudioCache {
+
+    private static final String SUFFIX = ".audio";
+
+    private final String voice;
+    private final String format;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final Path directory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // accessOrder = true 的 LinkedHashMap 即 LRU，访问都在 synchronized 内
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    // 磁盘层的索引：键 -> 文件大小，同样按访问顺序排列
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory 磁盘层目录，为 null 时只用内存层
+     */
+    public TtsAudioCache(String voice, String format, long maxMemoryBytes, long maxDiskBytes, Path directory) {
+        this.voice = voice;
+        this.format = format;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.directory = directory;
+        loadIndex();
+    }
+
+    public void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("tts.cache.hits", memoryHits, AtomicLong::get).tag("tier", "memory").register(registry);
+        FunctionCounter.builder("tts.cache.hits", diskHits, AtomicLong::get).tag("tier", "disk").register(registry);
+        FunctionCounter.builder("tts.cache.misses", misses, AtomicLong::get).register(registry);
+        Gauge.builder("tts.cache.bytes", this, TtsAudioCache::memoryBytes).tag("tier", "memory").baseUnit("bytes").register(registry);
+        Gauge.builder("tts.cache.bytes", this, TtsAudioCache::diskBytes).tag("tier", "disk").baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * 取缓存的音频，未命中时调用 synthesize 合成并写入两层缓存
+     */
+    public byte[] get(String text, Supplier<byte[]> synthesize) {
+        String key = key(text);
+        byte[] audio = fromMemory(key);
+        if (audio != null) {
+            memoryHits.incrementAndGet();
+            // 磁盘层的 LRU 顺序也跟着刷新，常用的音频不会因为一直命中内存而先被删出磁盘
+            synchronized (disk) {
+                disk.get(key);
+            }
+            return audio;
+        }
+        audio = fromDisk(key);
+        if (audio != null) {
+            diskHits.incrementAndGet();
+            toMemory(key, audio);
+            return audio;
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> pending = inFlight.putIfAbsent(key, mine);
+        if (pending != null) return pending.join();
+        misses.incrementAndGet();
+        try {
+            audio = synthesize.get();
+            if (audio != null && audio.length > 0) {
+                toMemory(key, audio);
+                toDisk(key, audio);
+            }
+            mine.complete(audio);
+            return audio;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 只查缓存，不合成
+     */
+    public boolean contains(String text) {
+        String key = key(text);
+        synchronized (memory) {
+            if (memory.containsKey(key)) return true;
+        }
+        synchronized (disk) {
+            return disk.containsKey(key);
+        }
+    }
+
+    private byte[] fromMemory(String key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    private void toMemory(String key, byte[] audio) {
+        if (audio.length > maxMemoryBytes) return;
+        synchronized (memory) {
+            byte[] old = memory.put(key, audio);
+            memoryBytes += audio.length - (old == null ? 0 : old.length);
+            Iterator<byte[]> eldest = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private byte[] fromDisk(String key) {
+        if (directory == null) return null;
+        synchronized (disk) {
+            if (disk.get(key) == null) return null;
+        }
+        Path file = directory.resolve(key + SUFFIX);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] audio = new byte[mapped.remaining()];
+            mapped.get(audio);
+            return audio;
+        } catch (IOException e) {
+            // 文件被外部删除等，索引跟着作废
+            synchronized (disk) {
+                Long size = disk.remove(key);
+                if (size != null) diskBytes -= size;
+            }
+            return null;
+        }
+    }
+
+    private void toDisk(String key, byte[] audio) {
+        if (directory == null || audio.length > maxDiskBytes) return;
+        try {
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tmp, audio);
+            Files.move(tmp, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("tts.cache.disk.write.failed error={}", e.getMessage());
+            return;
+        }
+        List<String> evicted = new ArrayList<>();
+        synchronized (disk) {
+            Long old = disk.put(key, (long) audio.length);
+            diskBytes += audio.length - (old == null ? 0 : old);
+            Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> e = eldest.next();
+                diskBytes -= e.getValue();
+                evicted.add(e.getKey());
+                eldest.remove();
+            }
+        }
+        for (String k : evicted) {
+            try {
+                Files.deleteIfExists(directory.resolve(k + SUFFIX));
+            } catch (IOException ignored) {
+                // 下次启动扫描目录时仍会计入，超限后再删
+            }
+        }
+    }
+
+    /**
+     * 启动时扫描磁盘层目录重建索引，按修改时间排出 LRU 顺序
+     */
+    private void loadIndex() {
+        if (directory == null) return;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList();
+            }
+            List<Map.Entry<Path, Long>> stamped = new ArrayList<>();
+            for (Path p : files) stamped.add(Map.entry(p, Files.getLastModifiedTime(p).toMillis()));
+            stamped.sort(Map.Entry.comparingByValue());
+            synchronized (disk) {
+                for (Map.Entry<Path, Long> e : stamped) {
+                    String name = e.getKey().getFileName().toString();
+                    long size = Files.size(e.getKey());
+                    disk.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                    diskBytes += size;
+                }
+            }
+            log.info("tts.cache.disk.load entries={} bytes={}", files.size(), diskBytes);
+        } catch (IOException e) {
+            // 只使用内存缓存
+            log.warn("tts.cache.disk.unavailable error={}", e.getMessage());
+        }
+    }
+
+    String key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((voice + "\n" + format + "\n" + text).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long memoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    public long diskBytes() {
+        synchronized (disk) {
+            return diskBytes;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = memoryHits.get() + diskHits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+        }
+        stats.put("memoryBytes", memoryBytes());
+        synchronized (disk) {
+            stats.put("diskEntries", disk.size());
+        }
+        stats.put("diskBytes", diskBytes());
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", m);
+        stats.put("hitRatio", hits + m == 0 ? 0.0 : (double) hits / (hits + m));
+        return stats;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.interviewer_controller.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 同一会话排队的轮次已满（重复点击、客户端重试），直接拒绝，返回 429
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TurnRejectedException extends RuntimeException {
+
+    public TurnRejectedException(String sessionId, int maxQueuedTurns) {
+        super("会话 " + sessionId + " 已有 " + maxQueuedTurns + " 轮在处理或排队，请等待上一轮结束");
+    }
+}
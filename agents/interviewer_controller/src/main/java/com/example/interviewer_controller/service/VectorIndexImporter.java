@@ -0,0 +1,144 @@
+package com.example.interviewer_controller.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * HNSW 向量库的导入工具，两种数据来源：
+ * 1. chroma：从现有 Chroma 集合直接拉取文档与向量（不需要重新调用 Embedding）
+ * 2. json：读取清洗后的 cleaned_data.json，按 rag_demo.py 的格式组装文档后批量向量化
+ * 导入结果写到 vectorstore.hnsw.path；当前使用的就是 HNSW 库时立即热加载。
+ */
+@Slf4j
+@Service
+public class VectorIndexImporter {
+
+    private static final int CHROMA_PAGE_SIZE = 500;
+
+    private final RestTemplate restTemplate;
+    private final EmbeddingModel documentEmbedding;
+    private final CachingVectorStore vectorStore;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${spring.ai.vectorstore.chroma.client.base-url}")
+    private String chromaUrl;
+
+    @Value("${vectorstore.chroma.collection:langchain}")
+    private String chromaCollection;
+
+    @Value("${vectorstore.hnsw.path}")
+    private String hnswPath;
+
+    @Value("${vectorstore.import.json-path}")
+    private String jsonPath;
+
+    public VectorIndexImporter(RestTemplate restTemplate,
+                               @Qualifier("openAiEmbeddingModel") EmbeddingModel documentEmbedding,
+                               CachingVectorStore vectorStore) {
+        this.restTemplate = restTemplate;
+        this.documentEmbedding = documentEmbedding;
+        this.vectorStore = vectorStore;
+    }
+
+    public synchronized Map<String, Object> importFrom(String source) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Document> documents = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        if ("chroma".equalsIgnoreCase(source)) {
+            readChroma(documents, vectors);
+        } else if ("json".equalsIgnoreCase(source)) {
+            readJson(documents, vectors);
+        } else {
+            throw new IllegalArgumentException("未知的导入来源: " + source + "（可选 chroma / json）");
+        }
+
+        Path directory = Paths.get(hnswPath);
+        HnswVectorStore.writeIndex(directory, documents, vectors);
+
+        // 当前就在用 HNSW 库时热加载，并清掉检索结果缓存
+        boolean reloaded = false;
+        if (vectorStore.getDelegate() instanceof HnswVectorStore hnsw) {
+            hnsw.reload();
+            vectorStore.invalidate();
+            reloaded = true;
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("source", source);
+        report.put("documents", documents.size());
+        report.put("dimensions", vectors.isEmpty() ? 0 : vectors.get(0).length);
+        report.put("directory", directory.toAbsolutePath().toString());
+        report.put("reloaded", reloaded);
+        report.put("elapsedMs", System.currentTimeMillis() - start);
+        log.info("hnsw.import {}", report);
+        return report;
+    }
+
+    /**
+     * 通过 Chroma REST 接口分页读取整个集合（含向量）
+     */
+    @SuppressWarnings("unchecked")
+    private void readChroma(List<Document> documents, List<float[]> vectors) {
+        Map<String, Object> collection = restTemplate.getForObject(
+                chromaUrl + "/api/v1/collections/{name}", Map.class, chromaCollection);
+        if (collection == null || collection.get("id") == null) {
+            throw new IllegalStateException("Chroma 中找不到集合: " + chromaCollection);
+        }
+        String collectionId = collection.get("id").toString();
+
+        for (int offset = 0; ; offset += CHROMA_PAGE_SIZE) {
+            Map<String, Object> body = Map.of(
+                    "include", List.of("embeddings", "documents", "metadatas"),
+                    "limit", CHROMA_PAGE_SIZE,
+                    "offset", offset);
+            Map<String, Object> page = restTemplate.postForObject(
+                    chromaUrl + "/api/v1/collections/{id}/get", body, Map.class, collectionId);
+            List<String> ids = page == null ? List.of() : (List<String>) page.get("ids");
+            if (ids == null || ids.isEmpty()) break;
+
+            List<List<Number>> embeddings = (List<List<Number>>) page.get("embeddings");
+            List<String> contents = (List<String>) page.get("documents");
+            List<Map<String, Object>> metadatas = (List<Map<String, Object>>) page.get("metadatas");
+            for (int i = 0; i < ids.size(); i++) {
+                Map<String, Object> metadata = metadatas == null || metadatas.get(i) == null
+                        ? new HashMap<>() : new HashMap<>(metadatas.get(i));
+                documents.add(new Document(ids.get(i), contents.get(i), metadata));
+                List<Number> e = embeddings.get(i);
+                float[] v = new float[e.size()];
+                for (int j = 0; j < v.length; j++) v[j] = e.get(j).floatValue();
+                vectors.add(v);
+            }
+            if (ids.size() < CHROMA_PAGE_SIZE) break;
+        }
+    }
+
+    /**
+     * 读取 cleaned_data.json，文档格式与 rag_demo.py 保持一致，再批量向量化
+     */
+    private void readJson(List<Document> documents, List<float[]> vectors) throws IOException {
+        List<Map<String, String>> items = objectMapper.readValue(new File(jsonPath),
+                new TypeReference<List<Map<String, String>>>() {});
+        for (Map<String, String> item : items) {
+            String content = "面试题：" + item.get("topic") + "\n标准答案：" + item.get("content");
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("source", item.get("origin_file"));
+            metadata.put("topic", item.get("topic"));
+            documents.add(new Document(content, metadata));
+        }
+        log.info("hnsw.import.embed documents={}", documents.size());
+        vectors.addAll(HnswVectorStore.embedDocuments(documentEmbedding, documents));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.interviewer_controller.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityMatcherTests {
+
+	private final EntityMatcher matcher = new EntityMatcher(KnowledgeGraph.build(List.of(
+			triplet("ZooKeeper", "实现", "分布式锁"),
+			triplet("ZooKeeper", "功能", "临时节点"),
+			triplet("Redis", "实现", "分布式锁"),
+			triplet("分布式", "包含", "IO"),
+			triplet("JVM", "包含", "垃圾回收"))));
+
+	@Test
+	void prefersLongestThenHighestDegree() {
+		assertEquals("分布式锁", matcher.bestMatch("我们一般用分布式锁"));
+		assertEquals("分布式锁", matcher.bestMatch("临时节点和分布式锁"));
+		assertEquals(List.of("ZooKeeper", "分布式锁", "分布式"), matcher.matchAll("我会用ＺｏｏＫｅｅｐｅｒ来实现分布式锁"));
+	}
+
+	@Test
+	void respectsEnglishWordBoundaries() {
+		assertNull(matcher.bestMatch("the ratio is fine"));
+		assertEquals("IO", matcher.bestMatch("阻塞IO模型"));
+		assertEquals("JVM", matcher.bestMatch("jvm的垃圾"));
+		assertNull(matcher.bestMatch("没有术语"));
+	}
+
+	private static Triplet triplet(String head, String relation, String tail) {
+		Triplet t = new Triplet();
+		t.setHead(head);
+		t.setRelation(relation);
+		t.setTail(tail);
+		t.setSource_topic("t");
+		return t;
+	}
+}
@@ -0,0 +1,55 @@
+package com.example.interviewer_controller.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityQuestionIndexTests {
+
+	private static Document question(String id, String topic) {
+		return new Document(id, "面试题：" + topic, Map.of("topic", topic, "distance", 0.1));
+	}
+
+	@Test
+	void sharesQuestionsAcrossEntitiesAndRoundTrips(@TempDir Path dir) throws Exception {
+		Map<String, List<Document>> candidates = new LinkedHashMap<>();
+		candidates.put("JVM", List.of(question("q1", "垃圾回收"), question("q2", "类加载")));
+		candidates.put("GC", List.of(question("q1", "垃圾回收")));
+		candidates.put("冷门实体", List.of());
+
+		EntityQuestionIndex built = EntityQuestionIndex.build(candidates, 2);
+		assertEquals(3, built.entityCount());
+		assertEquals(2, built.questionCount());
+		assertFalse(built.candidates("JVM", 2).get(0).getMetadata().containsKey("distance"));
+
+		built.write(dir.resolve("index.json"));
+		EntityQuestionIndex loaded = EntityQuestionIndex.load(dir.resolve("index.json"));
+		List<Document> jvm = loaded.candidates("JVM", 2);
+		assertEquals(List.of("q1", "q2"), List.of(jvm.get(0).getId(), jvm.get(1).getId()));
+		assertEquals("面试题：类加载", jvm.get(1).getContent());
+		assertEquals("q1", loaded.candidates(" GC ", 1).get(0).getId());
+		assertTrue(loaded.candidates("冷门实体", 10).isEmpty());
+		assertNull(loaded.candidates("未收录", 5));
+	}
+
+	@Test
+	void deeperRequestFallsBackWhenIndexIsFull() {
+		Map<String, List<Document>> candidates = new LinkedHashMap<>();
+		candidates.put("Redis", List.of(question("a", "持久化"), question("b", "淘汰策略"), question("c", "集群")));
+		candidates.put("MySQL", List.of(question("d", "索引")));
+		EntityQuestionIndex index = EntityQuestionIndex.build(candidates, 2);
+
+		assertEquals(2, index.candidates("Redis", 2).size());
+		// Redis 存满了 2 条，题库里可能还有更多
+		assertNull(index.candidates("Redis", 4));
+		// MySQL 只有 1 条，说明题库里就这么多
+		assertEquals(1, index.candidates("MySQL", 4).size());
+	}
+}
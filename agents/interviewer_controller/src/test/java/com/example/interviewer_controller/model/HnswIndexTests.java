@@ -0,0 +1,68 @@
+package com.example.interviewer_controller.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTests {
+
+	private static float[][] randomVectors(int n, int dim, long seed) {
+		Random random = new Random(seed);
+		float[][] data = new float[n][dim];
+		for (float[] v : data) {
+			for (int i = 0; i < dim; i++) v[i] = (float) random.nextGaussian();
+		}
+		return data;
+	}
+
+	@Test
+	void recallAgainstExactSearchIsHigh() {
+		float[][] data = randomVectors(2000, 32, 1);
+		HnswIndex index = HnswIndex.build(data, HnswIndex.DEFAULT_M, HnswIndex.DEFAULT_EF_CONSTRUCTION, 42);
+
+		int hit = 0;
+		int total = 0;
+		for (float[] query : randomVectors(50, 32, 2)) {
+			Set<Integer> exact = new HashSet<>();
+			for (HnswIndex.Result r : index.exactSearch(query, 10, null)) exact.add(r.node());
+			for (HnswIndex.Result r : index.search(query, 10, 64, null)) {
+				if (exact.contains(r.node())) hit++;
+			}
+			total += 10;
+		}
+		assertTrue(hit >= total * 0.95, "recall@10 = " + (double) hit / total);
+	}
+
+	@Test
+	void mappedIndexAnswersLikeHeapIndex(@TempDir Path dir) throws Exception {
+		float[][] data = randomVectors(500, 16, 3);
+		HnswIndex built = HnswIndex.build(data, 8, 100, 7);
+		built.write(dir.resolve("vectors.f32"), dir.resolve("graph.hnsw"));
+		HnswIndex mapped = HnswIndex.load(dir.resolve("vectors.f32"), dir.resolve("graph.hnsw"));
+
+		assertEquals(500, mapped.size());
+		assertEquals(16, mapped.dimensions());
+		for (float[] query : randomVectors(20, 16, 4)) {
+			assertEquals(built.search(query, 5, 32, null), mapped.search(query, 5, 32, null));
+		}
+	}
+
+	@Test
+	void filterOnlyReturnsMatchingNodes() {
+		float[][] data = randomVectors(300, 8, 5);
+		HnswIndex index = HnswIndex.build(data, 8, 100, 9);
+
+		List<HnswIndex.Result> even = index.search(data[10], 5, 32, node -> node % 2 == 0);
+		assertEquals(5, even.size());
+		assertEquals(10, even.get(0).node());
+		for (HnswIndex.Result r : even) assertEquals(0, r.node() % 2);
+		assertTrue(index.search(data[0], 3, 16, node -> false).isEmpty());
+	}
+}
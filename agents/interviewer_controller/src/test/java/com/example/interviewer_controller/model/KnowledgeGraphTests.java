@@ -0,0 +1,86 @@
+package com.example.interviewer_controller.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeGraphTests {
+
+	private static final File KG_JSON = new File("../../data_engineering/kg_data/knowledge_graph.json");
+
+	@Test
+	void neighborsMatchSubstringInBothDirections() {
+		KnowledgeGraph graph = KnowledgeGraph.build(List.of(
+				triplet("ZooKeeper", "功能", "通知和协调", "t1"),
+				triplet("分布式锁", "实现方式", "ZooKeeper临时节点", "t1"),
+				triplet("Redis", "实现", "分布式锁", "t2"),
+				triplet("zookeeper", "功能", "通知和协调", "t2")));
+
+		assertEquals(List.of("通知和协调", "分布式锁"), graph.neighbors("zookeeper"));
+		assertEquals(List.of("ZooKeeper临时节点", "Redis"), graph.neighbors("分布式锁"));
+		assertEquals(List.of(), graph.neighbors("Kafka"));
+		assertEquals(List.of("t1", "t2"), graph.topics());
+		assertEquals(2, graph.facts("ZooKeeper", 2).size());
+	}
+
+	@Test
+	void indexAgreesWithLinearScanOnRealGraph() throws Exception {
+		Assumptions.assumeTrue(KG_JSON.exists(), "knowledge_graph.json 不存在，跳过");
+		List<Triplet> triplets = new ObjectMapper().readValue(KG_JSON, new TypeReference<List<Triplet>>(){});
+		KnowledgeGraph graph = KnowledgeGraph.build(triplets);
+
+		Random random = new Random(42);
+		List<String> keys = new ArrayList<>(List.of("ZooKeeper", "jvm", "锁", "分布式", "Redis", "TCP", "x"));
+		for (int i = 0; i < 200; i++) {
+			keys.add(graph.entities().get(random.nextInt(graph.entityCount())));
+		}
+
+		for (String key : keys) {
+			String k = key.toLowerCase(Locale.ROOT).trim();
+			List<String> expected = triplets.stream()
+					.filter(t -> t.getHead().trim().toLowerCase(Locale.ROOT).contains(k) ||
+							t.getTail().trim().toLowerCase(Locale.ROOT).contains(k))
+					.map(t -> t.getHead().trim().toLowerCase(Locale.ROOT).contains(k) ? t.getTail().trim() : t.getHead().trim())
+					.distinct()
+					.collect(Collectors.toList());
+			assertEquals(expected, graph.neighbors(key), "key=" + key);
+		}
+	}
+
+	@Test
+	void snapshotRoundTripPreservesLookups(@TempDir Path dir) throws Exception {
+		Assumptions.assumeTrue(KG_JSON.exists(), "knowledge_graph.json 不存在，跳过");
+		List<Triplet> triplets = new ObjectMapper().readValue(KG_JSON, new TypeReference<List<Triplet>>(){});
+		KnowledgeGraph built = KnowledgeGraph.build(triplets);
+
+		Path file = dir.resolve("knowledge_graph.kgs");
+		KnowledgeGraphSnapshot.write(built, file);
+		KnowledgeGraph mapped = KnowledgeGraphSnapshot.load(file);
+
+		assertEquals(built.tripletCount(), mapped.tripletCount());
+		assertEquals(built.entities(), mapped.entities());
+		assertEquals(built.topics(), mapped.topics());
+		for (String key : List.of("ZooKeeper", "jvm", "锁", "分布式", "Redis")) {
+			assertEquals(built.neighbors(key), mapped.neighbors(key), "key=" + key);
+			assertEquals(built.facts(key, 5), mapped.facts(key, 5), "key=" + key);
+		}
+	}
+
+	private static Triplet triplet(String head, String relation, String tail, String topic) {
+		Triplet t = new Triplet();
+		t.setHead(head);
+		t.setRelation(relation);
+		t.setTail(tail);
+		t.setSource_topic(topic);
+		return t;
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.interviewer_controller.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartBodyTests {
+
+	@Test
+	void streamsFileBetweenBoundariesWithKnownLength() throws Exception {
+		byte[] audio = "fake-audio-bytes".getBytes(StandardCharsets.UTF_8);
+		MultipartBody body = new MultipartBody()
+				.file("file", "recording.m4a", "application/octet-stream", audio.length, () -> new ByteArrayInputStream(audio))
+				.field("model", "base");
+
+		HttpRequest.BodyPublisher publisher = body.publisher();
+		String text = new String(drain(publisher), StandardCharsets.UTF_8);
+		String boundary = body.contentType().substring(body.contentType().indexOf("boundary=") + 9);
+
+		assertEquals(text.getBytes(StandardCharsets.UTF_8).length, publisher.contentLength());
+		assertTrue(text.startsWith("--" + boundary + "\r\n"));
+		assertTrue(text.contains("name=\"file\"; filename=\"recording.m4a\"\r\nContent-Type: application/octet-stream\r\n\r\nfake-audio-bytes\r\n"));
+		assertTrue(text.contains("name=\"model\"\r\n\r\nbase\r\n"));
+		assertTrue(text.endsWith("--" + boundary + "--\r\n"));
+	}
+
+	@Test
+	void unknownFileSizeFallsBackToChunked() {
+		MultipartBody body = new MultipartBody()
+				.file("file", "a.wav", "audio/wav", -1, () -> new ByteArrayInputStream(new byte[10]));
+		assertEquals(-1, body.publisher().contentLength());
+	}
+
+	private static byte[] drain(HttpRequest.BodyPublisher publisher) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		publisher.subscribe(new Flow.Subscriber<>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				byte[] chunk = new byte[item.remaining()];
+				item.get(chunk);
+				out.writeBytes(chunk);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				done.completeExceptionally(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				done.complete(null);
+			}
+		});
+		done.get(5, TimeUnit.SECONDS);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,50 @@
+package com.example.interviewer_controller.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PcmWindowerTests {
+
+	private static final int RATE = 16000;
+
+	/**
+	 * ms 毫秒的 PCM，振幅恒为 amplitude
+	 */
+	private static byte[] tone(int ms, int amplitude) {
+		int samples = RATE * ms / 1000;
+		ByteBuffer buf = ByteBuffer.allocate(samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < samples; i++) buf.putShort((short) (i % 2 == 0 ? amplitude : -amplitude));
+		return buf.array();
+	}
+
+	@Test
+	void cutsAtTheQuietestFrameNearTheWindowEnd() {
+		PcmWindower windower = new PcmWindower(RATE, 1000, 300);
+		// 0~800ms 有声，800~840ms 停顿，之后继续说话
+		assertTrue(windower.push(tone(800, 8000)).isEmpty());
+		assertTrue(windower.push(tone(40, 0)).isEmpty());
+		List<byte[]> windows = windower.push(tone(500, 8000));
+
+		assertEquals(1, windows.size());
+		int cutMs = windows.get(0).length / 2 * 1000 / RATE;
+		assertTrue(cutMs >= 800 && cutMs <= 840, "应在停顿处切分，实际 " + cutMs + " ms");
+		assertEquals(1340 - cutMs, windower.bufferedMs(), 1);
+		assertEquals(0, windower.flush().length % 2);
+		assertEquals(0, windower.bufferedMs());
+	}
+
+	@Test
+	void wavHeaderDescribesPcm() {
+		byte[] wav = PcmWindower.toWav(tone(100, 100), RATE);
+		ByteBuffer buf = ByteBuffer.wrap(wav).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals("RIFF", new String(wav, 0, 4));
+		assertEquals(wav.length - 8, buf.getInt(4));
+		assertEquals(RATE, buf.getInt(24));
+		assertEquals(3200, buf.getInt(40));
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.interviewer_controller.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneticCorrectorTests {
+
+	private final PhoneticCorrector corrector = new PhoneticCorrector(List.of(
+			"ZooKeeper", "JVM", "Redis", "Spring Boot", "幂等性", "分布式锁", "Kafka", "Ant", "事务"));
+
+	@Test
+	void fixesMisheardTechnicalTerms() {
+		PhoneticCorrector.Result result = corrector.correct("我们用猪Keeper做选主，JBM 调优也做过");
+		assertEquals("我们用ZooKeeper做选主，JVM 调优也做过", result.text());
+		assertEquals(2, result.corrections().size());
+		assertFalse(result.uncertain());
+	}
+
+	@Test
+	void homophonesAreRewrittenButOtherNearMatchesEscalate() {
+		assertEquals("接口要保证幂等性", corrector.correct("接口要保证幂等姓").text());
+		// a/o 不是易混字母，差一个字母也不在本地改
+		PhoneticCorrector.Result result = corrector.correct("用 Spring Boat 搭的服务");
+		assertEquals("用 Spring Boat 搭的服务", result.text());
+		assertTrue(result.uncertain());
+	}
+
+	@Test
+	void ordinaryWordsNearAnEntityAreEscalatedNotRewritten() {
+		PhoneticCorrector vocabulary = new PhoneticCorrector(List.of("String", "Node", "Test", "ZooKeeper"));
+		for (String text : List.of("用Spring框架", "我会写code", "text")) {
+			PhoneticCorrector.Result result = vocabulary.correct(text);
+			assertEquals(text, result.text(), text);
+			assertTrue(result.corrections().isEmpty(), text);
+			assertTrue(result.uncertain(), text);
+		}
+	}
+
+	@Test
+	void unknownAcronymIsEscalated() {
+		PhoneticCorrector withoutJvm = new PhoneticCorrector(List.of("ZooKeeper", "Redis"));
+		PhoneticCorrector.Result result = withoutJvm.correct("JBM 调优也做过");
+		assertEquals("JBM 调优也做过", result.text());
+		assertTrue(result.uncertain());
+		assertEquals(List.of("JBM"), result.suspects());
+	}
+
+	@Test
+	void leavesCorrectTextAndCommonWordsAlone() {
+		String text = "Redis 和 Kafka 我都用过，and the 分布式锁 is fine，事物";
+		PhoneticCorrector.Result result = corrector.correct(text);
+		assertEquals(text, result.text());
+		assertTrue(result.corrections().isEmpty());
+	}
+
+	@Test
+	void distantMatchIsEscalatedInsteadOfRewritten() {
+		PhoneticCorrector.Result result = corrector.correct("Kavkaa 的分区");
+		assertEquals("Kavkaa 的分区", result.text());
+		assertTrue(result.uncertain());
+		assertEquals(List.of("Kavkaa"), result.suspects());
+	}
+
+	@Test
+	void confusableLettersCostHalf() {
+		assertEquals(1, PhoneticCorrector.distance("jbm", "jvm"));
+		assertEquals(2, PhoneticCorrector.distance("jxm", "jvm"));
+		assertEquals("zukeper", PhoneticCorrector.phoneticKey("猪Keeper"));
+		assertTrue(PhoneticCorrector.confusableOnly("zukeper", "zokeper"));
+		assertFalse(PhoneticCorrector.confusableOnly("sprin", "strin"));
+	}
+}
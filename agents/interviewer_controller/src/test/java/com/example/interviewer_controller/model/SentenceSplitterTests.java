@@ -0,0 +1,39 @@
+package com.example.interviewer_controller.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SentenceSplitterTests {
+
+	@Test
+	void splitsAcrossTokenBoundaries() {
+		SentenceSplitter splitter = new SentenceSplitter();
+		List<String> sentences = new ArrayList<>();
+		for (String token : List.of("好。你刚才提到", "了 Spring.AI 的", "用法，不错！那么", "HashMap 扩容时会发生什么？", "请说明 v1.", "0 的区别. 谢谢")) {
+			sentences.addAll(splitter.push(token));
+		}
+		assertEquals(List.of(
+				"好。你刚才提到了 Spring.AI 的用法，不错！",
+				"那么HashMap 扩容时会发生什么？",
+				"请说明 v1.0 的区别."), sentences);
+		assertEquals("谢谢", splitter.flush());
+		assertEquals("", splitter.flush());
+	}
+
+	@Test
+	void cutsOverlongSentenceAtComma() {
+		SentenceSplitter splitter = new SentenceSplitter();
+		String clause = "这是一个很长的从句用来测试断句逻辑是否正确，";
+		List<String> sentences = new ArrayList<>();
+		for (int i = 0; i < 5; i++) sentences.addAll(splitter.push(clause));
+		assertFalse(sentences.isEmpty());
+		for (String s : sentences) {
+			assertTrue(s.endsWith("，"));
+			assertTrue(s.length() <= 80);
+		}
+	}
+}
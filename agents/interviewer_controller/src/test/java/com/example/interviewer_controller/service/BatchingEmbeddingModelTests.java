@@ -0,0 +1,31 @@
+package com.example.interviewer_controller.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingEmbeddingModelTests {
+
+	@Test
+	void prefetchedVectorsAreUsedOnlyInsideTheirOwnScope() {
+		CountingEmbeddingModel remote = new CountingEmbeddingModel();
+		BatchingEmbeddingModel model = new BatchingEmbeddingModel(remote);
+
+		Map<String, float[]> first = model.prefetch(List.of("JVM", "Redis", "JVM"));
+		Map<String, float[]> second = model.prefetch(List.of("Kafka"));
+		assertEquals(List.of(List.of("JVM", "Redis"), List.of("Kafka")), remote.requests);
+
+		// 另一次多路检索的预取向量既不可见，结束后也不影响这一次
+		model.withPrefetched(second, () -> model.embed("Kafka"));
+		assertArrayEquals(new float[]{3f, 1f}, model.withPrefetched(first, () -> model.embed("JVM")));
+		assertArrayEquals(new float[]{5f, 1f}, model.withPrefetched(first, () -> model.embed("Redis")));
+		assertEquals(2, remote.requests.size());
+
+		model.withPrefetched(first, () -> model.embed("Kafka"));
+		model.embed("JVM");
+		assertEquals(List.of(List.of("Kafka"), List.of("JVM")), remote.requests.subList(2, 4));
+	}
+}
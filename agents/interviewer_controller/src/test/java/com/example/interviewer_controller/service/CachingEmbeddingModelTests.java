@@ -0,0 +1,44 @@
+package com.example.interviewer_controller.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingEmbeddingModelTests {
+
+	@Test
+	void batchesMissesAndEvictsLeastRecentlyUsed() {
+		CountingEmbeddingModel remote = new CountingEmbeddingModel();
+		CachingEmbeddingModel cache = new CachingEmbeddingModel(remote, "m", 2, null);
+
+		cache.embed(List.of("JVM", "Redis", "JVM"));
+		assertEquals(List.of(List.of("JVM", "Redis")), remote.requests);
+
+		assertEquals(3f, cache.embed("JVM")[0]);
+		cache.embed("Kafka"); // 淘汰最久未用的 Redis
+		cache.embed("Redis");
+		assertEquals(List.of(List.of("JVM", "Redis"), List.of("Kafka"), List.of("Redis")), remote.requests);
+		assertEquals(2, cache.size());
+		assertEquals(2L, cache.getStats().get("evictions"));
+	}
+
+	@Test
+	void persistedCacheSurvivesRestartOnlyForSameModel(@TempDir Path dir) {
+		Path file = dir.resolve("embedding-cache.bin");
+		CountingEmbeddingModel remote = new CountingEmbeddingModel();
+		CachingEmbeddingModel cache = new CachingEmbeddingModel(remote, "bge-m3", 10, file);
+		cache.embed(List.of("分布式锁", "ZooKeeper"));
+		cache.persist();
+
+		CachingEmbeddingModel reloaded = new CachingEmbeddingModel(remote, "bge-m3", 10, file);
+		assertArrayEquals(new float[]{4f, 1f}, reloaded.embed("分布式锁"));
+		assertEquals(1, remote.requests.size());
+
+		CachingEmbeddingModel otherModel = new CachingEmbeddingModel(remote, "bge-large", 10, file);
+		assertEquals(0, otherModel.size());
+	}
+}
@@ -0,0 +1,166 @@
+package com.example.interviewer_controller.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingVectorStoreTests {
+
+	@Test
+	void cachesPerQueryAndTopKUntilCollectionChanges() {
+		CountingStore chroma = new CountingStore();
+		CachingVectorStore store = new CachingVectorStore(chroma, 60, 100);
+
+		List<Document> first = store.similaritySearch(SearchRequest.query("JVM").withTopK(5));
+		assertSame(first, store.similaritySearch(SearchRequest.query("JVM").withTopK(5)));
+		store.similaritySearch(SearchRequest.query("JVM").withTopK(10));
+		assertEquals(List.of("JVM/5", "JVM/10"), chroma.searches);
+		assertTrue(store.isCached(SearchRequest.query("JVM").withTopK(10)));
+
+		store.add(List.of(new Document("面试题：JVM 内存模型")));
+		assertFalse(store.isCached(SearchRequest.query("JVM").withTopK(5)));
+		store.similaritySearch(SearchRequest.query("JVM").withTopK(5));
+		assertEquals(3, chroma.searches.size());
+	}
+
+	@Test
+	void failedSearchIsNotCached() {
+		CountingStore chroma = new CountingStore();
+		CachingVectorStore store = new CachingVectorStore(chroma, 60, 100);
+		chroma.failNext = true;
+		assertThrows(IllegalStateException.class, () -> store.similaritySearch(SearchRequest.query("Redis")));
+		assertEquals(1, store.similaritySearch(SearchRequest.query("Redis")).size());
+	}
+
+	@Test
+	void waitersRetryInsteadOfInheritingTheOwnersFailure() throws Exception {
+		GatedStore chroma = new GatedStore(new IllegalStateException("检索被中断"));
+		CachingVectorStore store = new CachingVectorStore(chroma, 60, 100);
+
+		AtomicReference<Throwable> ownerFailure = new AtomicReference<>();
+		Thread owner = startOwner(store, ownerFailure);
+		chroma.entered.await();
+		List<List<Document>> results = new CopyOnWriteArrayList<>();
+		List<Thread> waiters = startWaiters(store, results, 3);
+
+		chroma.release.countDown();
+		owner.join();
+		for (Thread waiter : waiters) waiter.join();
+		assertInstanceOf(IllegalStateException.class, ownerFailure.get());
+		assertEquals(3, results.size());
+		// 发起者失败后只由一个等待者再检索一次
+		assertEquals(2, chroma.calls.get());
+	}
+
+	@Test
+	void ownerErrorDoesNotLeaveWaitersBlocked() throws Exception {
+		GatedStore chroma = new GatedStore(new OutOfMemoryError("模拟 Error"));
+		CachingVectorStore store = new CachingVectorStore(chroma, 60, 100);
+
+		AtomicReference<Throwable> ownerFailure = new AtomicReference<>();
+		Thread owner = startOwner(store, ownerFailure);
+		chroma.entered.await();
+		List<List<Document>> results = new CopyOnWriteArrayList<>();
+		List<Thread> waiters = startWaiters(store, results, 2);
+
+		chroma.release.countDown();
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			owner.join();
+			for (Thread waiter : waiters) waiter.join();
+		});
+		assertInstanceOf(OutOfMemoryError.class, ownerFailure.get());
+		assertEquals(2, results.size());
+	}
+
+	private static Thread startOwner(CachingVectorStore store, AtomicReference<Throwable> failure) {
+		Thread owner = new Thread(() -> {
+			try {
+				store.similaritySearch(SearchRequest.query("Redis"));
+			} catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		owner.start();
+		return owner;
+	}
+
+	/**
+	 * 启动 count 个检索同一个键的线程，等它们都阻塞在进行中的检索上再返回
+	 */
+	private static List<Thread> startWaiters(CachingVectorStore store, List<List<Document>> results, int count)
+			throws InterruptedException {
+		List<Thread> waiters = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Thread waiter = new Thread(() -> results.add(store.similaritySearch(SearchRequest.query("Redis"))));
+			waiter.start();
+			waiters.add(waiter);
+		}
+		for (Thread waiter : waiters) {
+			while (waiter.getState() != Thread.State.WAITING) Thread.sleep(1);
+		}
+		return waiters;
+	}
+
+	/**
+	 * 第一次检索阻塞到 release，然后抛出 failure；之后的检索正常返回
+	 */
+	private static class GatedStore extends CountingStore {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger calls = new AtomicInteger();
+		private final Throwable failure;
+
+		GatedStore(Throwable failure) {
+			this.failure = failure;
+		}
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+			if (calls.incrementAndGet() > 1) return List.of(new Document("面试题：" + request.getQuery()));
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure instanceof Error error) throw error;
+			throw (RuntimeException) failure;
+		}
+	}
+
+	private static class CountingStore implements VectorStore {
+		final List<String> searches = new ArrayList<>();
+		boolean failNext;
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+			searches.add(request.getQuery() + "/" + request.getTopK());
+			if (failNext) {
+				failNext = false;
+				throw new IllegalStateException("chroma down");
+			}
+			return List.of(new Document("面试题：" + request.getQuery()));
+		}
+
+		@Override
+		public void add(List<Document> documents) {
+		}
+
+		@Override
+		public Optional<Boolean> delete(List<String> idList) {
+			return Optional.of(true);
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.interviewer_controller.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用的假远程嵌入模型：向量为 [文本长度, 1]，并记录每次请求的文本
+ */
+class CountingEmbeddingModel implements EmbeddingModel {
+	final List<List<String>> requests = new ArrayList<>();
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+		requests.add(List.copyOf(request.getInstructions()));
+		List<Embedding> results = new ArrayList<>();
+		for (int i = 0; i < request.getInstructions().size(); i++) {
+			results.add(new Embedding(new float[]{request.getInstructions().get(i).length(), 1f}, i));
+		}
+		return new EmbeddingResponse(results);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+		throw new UnsupportedOperationException();
+	}
+}
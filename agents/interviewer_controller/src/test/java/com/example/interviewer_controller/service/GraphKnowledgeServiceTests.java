@@ -0,0 +1,158 @@
+package com.example.interviewer_controller.service;
+
+import com.example.interviewer_controller.model.KnowledgeGraph;
+import com.example.interviewer_controller.model.KnowledgeGraphSnapshot;
+import com.example.interviewer_controller.model.Triplet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphKnowledgeServiceTests {
+
+	private static final int EDGES = 20;
+
+	@TempDir
+	Path dir;
+
+	private final GraphKnowledgeService service = new GraphKnowledgeService();
+
+	@AfterEach
+	void shutdown() {
+		service.shutdown();
+	}
+
+	@Test
+	void readersSeeEitherTheOldOrTheNewGraphDuringReloads() throws Exception {
+		Path json = writeVersion(0);
+		start(json, false);
+
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicInteger reads = new AtomicInteger();
+		List<String> torn = Collections.synchronizedList(new ArrayList<>());
+		ExecutorService readers = Executors.newFixedThreadPool(4);
+		for (int r = 0; r < 4; r++) {
+			readers.submit(() -> {
+				while (!done.get()) {
+					// 同一版本的邻居带同一个前缀，混着两个版本或数量不对说明读到了构建到一半的图谱
+					List<String> neighbors = service.findNeighbors("Redis");
+					String version = neighbors.isEmpty() ? "" : neighbors.get(0).substring(0, neighbors.get(0).indexOf('-'));
+					if (neighbors.size() != EDGES || !neighbors.stream().allMatch(n -> n.startsWith(version + "-"))) {
+						torn.add(neighbors.toString());
+					}
+					reads.incrementAndGet();
+				}
+			});
+		}
+
+		for (int v = 1; v <= 10; v++) {
+			writeVersion(v);
+			Files.deleteIfExists(dir.resolve("kg.kgs"));
+			Map<String, Object> report = service.reload().get(10, TimeUnit.SECONDS);
+			assertEquals(EDGES, report.get("triplets"));
+		}
+		done.set(true);
+		readers.shutdown();
+		assertTrue(readers.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(List.of(), torn);
+		assertTrue(reads.get() > 0);
+		assertTrue(service.findNeighbors("Redis").stream().allMatch(n -> n.startsWith("v10-")));
+	}
+
+	@Test
+	void reloadRequestedWhileOneIsRunningReusesIt() throws Exception {
+		start(writeVersion(0), false);
+
+		// 先占住后台重建线程，让第一次重建停在队列里
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService reloadExecutor = (ExecutorService) ReflectionTestUtils.getField(service, "reloadExecutor");
+		reloadExecutor.submit(() -> {
+			release.await();
+			return null;
+		});
+
+		writeVersion(1);
+		Files.deleteIfExists(dir.resolve("kg.kgs"));
+		CompletableFuture<Map<String, Object>> first = service.reload();
+		CompletableFuture<Map<String, Object>> second = service.reload();
+		assertSame(first, second);
+		assertEquals(true, service.getStatus().get("reloading"));
+
+		release.countDown();
+		first.get(10, TimeUnit.SECONDS);
+		assertEquals(false, service.getStatus().get("reloading"));
+		assertTrue(service.findNeighbors("Redis").stream().allMatch(n -> n.startsWith("v1-")));
+		// 上一次结束后再请求会重新构建
+		assertNotSame(first, service.reload());
+	}
+
+	@Test
+	void watcherReloadsOnChangesButIgnoresItsOwnSnapshotWrite() throws Exception {
+		Path json = writeVersion(0);
+		Path snapshot = dir.resolve("kg.kgs");
+		start(json, true);
+
+		// JSON 变化：解析 JSON 重建，并顺手写出快照；这次快照写入不应再触发一次加载
+		writeVersion(1);
+		awaitUntil(() -> service.findNeighbors("Redis").stream().allMatch(n -> n.startsWith("v1-")));
+		Object loadedAt = service.getStatus().get("loadedAt");
+		assertEquals(json.toString(), service.getStatus().get("source"));
+		Thread.sleep(2500);
+		assertEquals(loadedAt, service.getStatus().get("loadedAt"));
+		assertEquals(json.toString(), service.getStatus().get("source"));
+
+		// 外部换上的快照照常加载
+		KnowledgeGraphSnapshot.write(KnowledgeGraph.build(version(2)), snapshot);
+		awaitUntil(() -> service.findNeighbors("Redis").stream().allMatch(n -> n.startsWith("v2-")));
+		assertEquals(snapshot.toString(), service.getStatus().get("source"));
+	}
+
+	private void start(Path json, boolean watch) throws Exception {
+		ReflectionTestUtils.setField(service, "jsonPath", json.toString());
+		ReflectionTestUtils.setField(service, "snapshotPath", dir.resolve("kg.kgs").toString());
+		ReflectionTestUtils.setField(service, "watchEnabled", watch);
+		service.init();
+	}
+
+	private Path writeVersion(int v) throws Exception {
+		Path json = dir.resolve("kg.json");
+		new ObjectMapper().writeValue(json.toFile(), version(v));
+		return json;
+	}
+
+	/**
+	 * 第 v 版图谱：Redis 的 EDGES 个邻居都以 "v{v}-" 开头
+	 */
+	private static List<Triplet> version(int v) {
+		List<Triplet> triplets = new ArrayList<>();
+		for (int i = 0; i < EDGES; i++) {
+			Triplet t = new Triplet();
+			t.setHead("Redis");
+			t.setRelation("包含");
+			t.setTail("v" + v + "-" + i);
+			t.setSource_topic("t");
+			triplets.add(t);
+		}
+		return triplets;
+	}
+
+	private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) fail("等待超时");
+			Thread.sleep(50);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.example.interviewer_controller.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswVectorStoreTests {
+
+	private static final List<String> TOPICS = List.of("JVM", "Redis", "MySQL", "TCP");
+
+	@Test
+	void searchFilterAndReloadFromDisk(@TempDir Path dir) {
+		TopicModel model = new TopicModel();
+		HnswVectorStore store = new HnswVectorStore(model, model, dir, 16);
+		assertTrue(store.similaritySearch(SearchRequest.query("JVM")).isEmpty());
+
+		store.add(List.of(
+				new Document("jvm-1", "面试题：JVM 垃圾回收", Map.of("source", "java.md")),
+				new Document("redis-1", "面试题：Redis 持久化", Map.of("source", "db.md")),
+				new Document("mysql-1", "面试题：MySQL 索引", Map.of("source", "db.md")),
+				new Document("tcp-1", "面试题：TCP 三次握手", Map.of("source", "net.md"))));
+
+		List<Document> top = store.similaritySearch(SearchRequest.query("Redis").withTopK(1));
+		assertEquals("redis-1", top.get(0).getId());
+		assertEquals(0.0, ((Number) top.get(0).getMetadata().get("distance")).doubleValue(), 1e-5);
+
+		Filter.Expression dbOnly = new Filter.Expression(Filter.ExpressionType.EQ,
+				new Filter.Key("source"), new Filter.Value("db.md"));
+		List<Document> filtered = store.similaritySearch(SearchRequest.query("JVM").withTopK(4).withFilterExpression(dbOnly));
+		assertEquals(2, filtered.size());
+		for (Document d : filtered) assertEquals("db.md", d.getMetadata().get("source"));
+
+		assertEquals(true, store.delete(List.of("tcp-1")).orElseThrow());
+		HnswVectorStore reopened = new HnswVectorStore(model, model, dir, 16);
+		assertEquals(3, reopened.getStatus().get("documents"));
+		assertEquals("jvm-1", reopened.similaritySearch(SearchRequest.query("JVM").withTopK(1)).get(0).getId());
+	}
+
+	/**
+	 * 假的向量模型：按文本里出现的主题词生成向量
+	 */
+	private static class TopicModel implements EmbeddingModel {
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+			List<Embedding> results = new ArrayList<>();
+			for (int i = 0; i < request.getInstructions().size(); i++) {
+				String text = request.getInstructions().get(i);
+				float[] v = new float[TOPICS.size() + 1];
+				for (int t = 0; t < TOPICS.size(); t++) {
+					if (text.contains(TOPICS.get(t))) v[t] = 1f;
+				}
+				v[TOPICS.size()] = 0.01f;
+				results.add(new Embedding(v, i));
+			}
+			return new EmbeddingResponse(results);
+		}
+
+		@Override
+		public float[] embed(Document document) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.interviewer_controller.service;
+
+import com.example.interviewer_controller.model.PhoneticCorrector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InterviewServiceTests {
+
+	private final ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ChatMemory chatMemory = mock(ChatMemory.class);
+
+	// 本地既纠不了错也认不出实体，纠错和实体提取都会交给大模型
+	private final GraphKnowledgeService graph = new GraphKnowledgeService() {
+		@Override
+		public PhoneticCorrector.Result correctTerms(String text) {
+			return new PhoneticCorrector.Result(text, List.of(), true, List.of("JBM"));
+		}
+
+		@Override
+		public String recognizeEntity(String text) {
+			return null;
+		}
+
+		@Override
+		public List<String> getAllEntities() {
+			return List.of("JVM");
+		}
+	};
+
+	@AfterEach
+	void shutdown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void preprocessingCallsNeverTouchChatMemory() {
+		RecordingBuilder chatBuilder = new RecordingBuilder("不该用到");
+		RecordingBuilder preprocessBuilder = new RecordingBuilder("JVM");
+		InterviewService service = new InterviewService(chatBuilder.builder, preprocessBuilder.builder, null, graph,
+				null, null, pool, chatMemory, null,
+				new LlmScheduler(2, 8, 1000, 1000, 1000, registry), null, registry,
+				new StageMetrics(registry), new TokenUsageAdvisor(registry));
+
+		assertEquals("JVM", service.correctSpeechText("JBM 调优做过", "说说 JVM 调优", "m"));
+		assertEquals("JVM", service.extractEntityFromAnswer("JBM 调优做过", "m"));
+
+		assertTrue(chatBuilder.advisors.stream().anyMatch(a -> a instanceof MessageChatMemoryAdvisor));
+		assertTrue(preprocessBuilder.advisors.stream().noneMatch(a -> a instanceof MessageChatMemoryAdvisor));
+		verify(preprocessBuilder.client, times(2)).prompt();
+		verify(chatBuilder.client, never()).prompt();
+		verifyNoInteractions(chatMemory);
+	}
+
+	@Test
+	void finalReportGoesFromNoneToPendingToReadyWithoutWritingMemory() throws Exception {
+		SessionChatMemory memory = new SessionChatMemory();
+		List<Message> history = List.of(new AssistantMessage("说说 JVM 调优"), new UserMessage("调过堆大小和 GC"));
+		memory.add("s", history);
+		InterviewSessionManager sessions = new InterviewSessionManager(memory, registry, 30, 10);
+		RecordingBuilder chatBuilder = new RecordingBuilder("不该用到");
+		RecordingBuilder preprocessBuilder = new RecordingBuilder("不该用到");
+		CountDownLatch release = new CountDownLatch(1);
+		preprocessBuilder.answerReport(invocation -> {
+			release.await();
+			return "【面试评分】：80/100";
+		});
+		InterviewService service = finishingService(chatBuilder, preprocessBuilder, memory, sessions);
+
+		assertEquals("none", service.getFinalReportStatus("s").get("status"));
+		sessions.getOrCreate("s").setTotalValidKeywordsHandled(InterviewSession.KEYWORD_THRESHOLD);
+		assertTrue(service.chat("最后一个回答", "s", "m").getAiResponse().contains("面试报告正在生成"));
+		assertEquals("pending", service.getFinalReportStatus("s").get("status"));
+
+		release.countDown();
+		service.getFinalReport("s").get(10, TimeUnit.SECONDS);
+		assertEquals("ready", service.getFinalReportStatus("s").get("status"));
+		assertEquals("【面试评分】：80/100", service.getFinalReportStatus("s").get("report"));
+
+		// 报告读到了历史，但报告提示词和报告正文都没有写回记忆
+		verify(preprocessBuilder.client.prompt()).messages(history);
+		assertEquals(history, memory.get("s", 100));
+		verify(chatBuilder.client, never()).prompt();
+		sessions.shutdown();
+	}
+
+	@Test
+	void finalReportIsFailedWhenGenerationDies() throws Exception {
+		SessionChatMemory memory = new SessionChatMemory();
+		InterviewSessionManager sessions = new InterviewSessionManager(memory, registry, 30, 10);
+		RecordingBuilder preprocessBuilder = new RecordingBuilder("不该用到");
+		preprocessBuilder.answerReport(invocation -> {
+			throw new StackOverflowError();
+		});
+		InterviewService service = finishingService(new RecordingBuilder("不该用到"), preprocessBuilder, memory, sessions);
+
+		sessions.getOrCreate("s").setTotalValidKeywordsHandled(InterviewSession.KEYWORD_THRESHOLD);
+		service.chat("最后一个回答", "s", "m");
+		assertThrows(Exception.class, () -> service.getFinalReport("s").get(10, TimeUnit.SECONDS));
+		assertEquals("failed", service.getFinalReportStatus("s").get("status"));
+		sessions.shutdown();
+	}
+
+	private InterviewService finishingService(RecordingBuilder chatBuilder, RecordingBuilder preprocessBuilder,
+											  SessionChatMemory memory, InterviewSessionManager sessions) {
+		return new InterviewService(chatBuilder.builder, preprocessBuilder.builder, null, graph,
+				null, null, pool, memory, sessions,
+				new LlmScheduler(2, 8, 1000, 1000, 1000, registry), new QuestionPrefetcher(graph, pool, registry),
+				registry, new StageMetrics(registry), new TokenUsageAdvisor(registry));
+	}
+
+	/**
+	 * 记录 defaultAdvisors 的 ChatClient.Builder，build 出的客户端对任何请求都回复 reply
+	 */
+	private static final class RecordingBuilder {
+		final List<Advisor> advisors = new ArrayList<>();
+		final ChatClient client = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+		final ChatClient.Builder builder = mock(ChatClient.Builder.class);
+
+		RecordingBuilder(String reply) {
+			when(client.prompt().user(anyString()).options(any()).call().content()).thenReturn(reply);
+			clearInvocations(client);
+			when(builder.defaultAdvisors(any(Advisor[].class))).thenAnswer(invocation -> {
+				for (Object advisor : invocation.getArguments()) advisors.add((Advisor) advisor);
+				return builder;
+			});
+			when(builder.build()).thenReturn(client);
+		}
+
+		/**
+		 * 最终报告的请求（带上历史消息和报告提示词）由 answer 回复
+		 */
+		@SuppressWarnings("unchecked")
+		void answerReport(Answer<String> answer) {
+			when(client.prompt().messages(anyList()).user(any(Consumer.class)).options(any()).call().content()).thenAnswer(answer);
+			clearInvocations(client);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterviewSessionManagerTests {
+
+	@Test
+	void capacityEvictionReleasesStateAndChatMemoryTogether() throws Exception {
+		SessionChatMemory memory = new SessionChatMemory();
+		InterviewSessionManager manager = new InterviewSessionManager(memory, new SimpleMeterRegistry(), 30, 2);
+
+		manager.getOrCreate("a").setLastQuestion("请介绍一下 JVM 的内存模型");
+		memory.add("a", List.of(new UserMessage("堆、栈、方法区")));
+		Thread.sleep(2);
+		manager.getOrCreate("b");
+		memory.add("b", List.of(new UserMessage("你好")));
+		assertTrue(manager.bytes("a") > memory.bytes("a"));
+
+		Thread.sleep(2);
+		manager.getOrCreate("c");
+		assertEquals(2, manager.size());
+		assertEquals(0, manager.bytes("a"));
+		assertTrue(memory.get("a", 10).isEmpty());
+		assertEquals(1, memory.get("b", 10).size());
+		assertEquals(1L, manager.getStatus().get("evictedCapacity"));
+	}
+
+	@Test
+	void idleSweepAlsoDropsOrphanedChatMemory() throws Exception {
+		SessionChatMemory memory = new SessionChatMemory();
+		InterviewSessionManager manager = new InterviewSessionManager(memory, new SimpleMeterRegistry(), 0, 10);
+
+		manager.getOrCreate("idle");
+		memory.add("idle", List.of(new UserMessage("回答")));
+		memory.add("orphan", List.of(new UserMessage("淘汰后才写入的记忆")));
+		Thread.sleep(2);
+		manager.evictIdle();
+
+		assertEquals(0, manager.size());
+		assertEquals(0, memory.size());
+		assertEquals(0, manager.totalBytes());
+	}
+}
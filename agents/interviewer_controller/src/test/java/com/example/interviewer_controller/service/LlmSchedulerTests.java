@@ -0,0 +1,92 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmSchedulerTests {
+
+	private static LlmScheduler scheduler(int concurrency, int maxQueue, long waitMs) {
+		return new LlmScheduler(concurrency, maxQueue, waitMs, waitMs, waitMs, new SimpleMeterRegistry());
+	}
+
+	private static void awaitQueued(LlmScheduler scheduler, int depth) throws InterruptedException {
+		for (int i = 0; i < 500 && scheduler.queueDepth() < depth; i++) Thread.sleep(2);
+		assertEquals(depth, scheduler.queueDepth());
+	}
+
+	@Test
+	void waitersAreServedByPriorityThenArrival() throws Exception {
+		LlmScheduler scheduler = scheduler(1, 10, 5000);
+		ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+		LlmScheduler.Permit busy = scheduler.acquire(LlmScheduler.Priority.INTERACTIVE);
+		List<Future<?>> futures = new ArrayList<>();
+		String[] names = {"report", "correction", "reply-1", "reply-2"};
+		LlmScheduler.Priority[] priorities = {LlmScheduler.Priority.BACKGROUND, LlmScheduler.Priority.PREPROCESS,
+				LlmScheduler.Priority.INTERACTIVE, LlmScheduler.Priority.INTERACTIVE};
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i];
+			LlmScheduler.Priority priority = priorities[i];
+			futures.add(pool.submit(() -> scheduler.call(priority, () -> order.add(name))));
+			awaitQueued(scheduler, i + 1);
+		}
+		busy.close();
+		for (Future<?> f : futures) f.get(5, TimeUnit.SECONDS);
+
+		assertEquals(List.of("reply-1", "reply-2", "correction", "report"), order);
+		assertEquals(1, scheduler.available());
+		pool.shutdown();
+	}
+
+	@Test
+	void fullQueueShedsLowerPriorityAndTimesOut() throws Exception {
+		LlmScheduler scheduler = scheduler(1, 1, 200);
+		ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+
+		LlmScheduler.Permit busy = scheduler.acquire(LlmScheduler.Priority.INTERACTIVE);
+		Future<String> report = pool.submit(() -> scheduler.call(LlmScheduler.Priority.BACKGROUND, () -> "report"));
+		awaitQueued(scheduler, 1);
+
+		// 队列满：回复把报告挤出队列，同优先级的后来者直接被拒
+		Future<String> reply = pool.submit(() -> scheduler.call(LlmScheduler.Priority.INTERACTIVE, () -> "reply"));
+		ExecutionException shed = assertThrows(ExecutionException.class, () -> report.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(LlmOverloadedException.class, shed.getCause());
+		awaitQueued(scheduler, 1);
+		assertThrows(LlmOverloadedException.class, () -> scheduler.call(LlmScheduler.Priority.INTERACTIVE, () -> "late"));
+
+		// 名额一直不释放，排队的回复等满 200ms 后超时
+		ExecutionException timeout = assertThrows(ExecutionException.class, () -> reply.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(LlmOverloadedException.class, timeout.getCause());
+
+		busy.close();
+		assertEquals(1, scheduler.available());
+		pool.shutdown();
+	}
+
+	@Test
+	void streamHoldsPermitUntilTerminated() {
+		LlmScheduler scheduler = scheduler(1, 10, 100);
+		List<Integer> seen = new ArrayList<>();
+		scheduler.stream(LlmScheduler.Priority.INTERACTIVE, () -> Flux.just(1, 2, 3))
+				.doOnNext(v -> {
+					seen.add(v);
+					assertEquals(0, scheduler.available());
+				})
+				.blockLast();
+		assertEquals(List.of(1, 2, 3), seen);
+		assertEquals(1, scheduler.available());
+
+		assertThrows(IllegalStateException.class, () -> scheduler.stream(LlmScheduler.Priority.INTERACTIVE,
+				() -> Flux.<Integer>error(new IllegalStateException("模型断开"))).blockLast());
+		assertEquals(1, scheduler.available());
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionPrefetcherTests {
+
+	private final ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final GraphKnowledgeService graph = new GraphKnowledgeService() {
+		@Override
+		public List<String> findNeighbors(String entity) {
+			return "Redis".equals(entity) ? List.of("持久化", "缓存穿透") : List.of();
+		}
+	};
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private Map<String, List<Document>> load(List<String> keys) {
+		loads.incrementAndGet();
+		Map<String, List<Document>> result = new LinkedHashMap<>();
+		for (String key : keys) result.put(key, List.of(new Document(key + " 的题目")));
+		return result;
+	}
+
+	@AfterEach
+	void shutdown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void matchingEntityReusesPrefetchedCandidates() {
+		QuestionPrefetcher prefetcher = new QuestionPrefetcher(graph, pool, new SimpleMeterRegistry());
+		InterviewSession session = new InterviewSession();
+		prefetcher.prepare(session, "Redis", "MySQL", this::load);
+
+		Map<String, List<Document>> hit = prefetcher.take(session, " redis ", List.of("持久化", "缓存穿透"));
+		assertNotNull(hit);
+		assertEquals(List.of("持久化", "缓存穿透"), List.copyOf(hit.keySet()));
+		assertEquals("MySQL 的题目", prefetcher.outline(session, "MySQL").get(0).getContent());
+		assertNull(prefetcher.outline(session, "JVM"));
+		assertEquals(1, loads.get());
+		assertEquals(1.0, prefetcher.getStatus().get("hitRate"));
+	}
+
+	@Test
+	void differentEntityDiscardsPrefetch() {
+		QuestionPrefetcher prefetcher = new QuestionPrefetcher(graph, pool, new SimpleMeterRegistry());
+		InterviewSession session = new InterviewSession();
+		prefetcher.prepare(session, "Redis", null, this::load);
+
+		assertNull(prefetcher.take(session, "Kafka", List.of("分区")));
+		assertEquals(1L, prefetcher.getStatus().get("misses"));
+
+		prefetcher.discard(session);
+		assertNull(session.getPrepared());
+		assertNull(prefetcher.take(session, "Redis", List.of("持久化")));
+	}
+}
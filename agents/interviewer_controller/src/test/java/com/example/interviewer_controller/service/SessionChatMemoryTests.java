@@ -0,0 +1,56 @@
+package com.example.interviewer_controller.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionChatMemoryTests {
+
+	@Test
+	void olderTurnsAreFoldedIntoSummaryAndPromptStaysFlat() {
+		List<Runnable> pending = new ArrayList<>();
+		Executor deferred = pending::add;
+		List<Integer> foldedSizes = new ArrayList<>();
+		SessionChatMemory memory = new SessionChatMemory((previous, folded) -> {
+			foldedSizes.add(folded.size());
+			return previous + "[" + folded.get(0).getContent() + "…]";
+		}, deferred, 4, 2);
+
+		int maxPromptMessages = 0;
+		for (int turn = 1; turn <= 10; turn++) {
+			memory.add("s", List.of(new UserMessage("回答" + turn), new AssistantMessage("问题" + turn)));
+			// 摘要还没完成时，本轮照常读取原文，不会阻塞
+			maxPromptMessages = Math.max(maxPromptMessages, memory.get("s", 100).size());
+			pending.forEach(Runnable::run);
+			pending.clear();
+		}
+
+		List<Message> prompt = memory.get("s", 100);
+		assertEquals(MessageType.SYSTEM, prompt.get(0).getMessageType());
+		assertTrue(prompt.get(0).getContent().contains("回答1"));
+		assertEquals(5, prompt.size());
+		assertEquals("回答9", prompt.get(1).getContent());
+		assertTrue(maxPromptMessages <= 7, "每轮取出的记忆条数应保持平稳: " + maxPromptMessages);
+		assertEquals(List.of(2, 2, 2, 2, 2, 2, 2, 2), foldedSizes);
+	}
+
+	@Test
+	void failedSummaryKeepsMessagesForNextTurn() {
+		SessionChatMemory memory = new SessionChatMemory((previous, folded) -> {
+			throw new IllegalStateException("模型不可用");
+		}, Runnable::run, 2, 2);
+
+		memory.add("s", List.of(new UserMessage("a"), new AssistantMessage("b")));
+		memory.add("s", List.of(new UserMessage("c"), new AssistantMessage("d")));
+		assertEquals(4, memory.get("s", 100).size());
+		assertEquals("", memory.summary("s"));
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTurnExecutorTests {
+
+	@Test
+	void turnsOfOneSessionNeverOverlapWhileSessionsRunInParallel() throws Exception {
+		ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+		SessionTurnExecutor turns = new SessionTurnExecutor(pool, 1000, new SimpleMeterRegistry());
+		int sessions = 8;
+		int turnsPerSession = 50;
+		AtomicInteger[] running = new AtomicInteger[sessions];
+		List<Integer>[] order = new List[sessions];
+		for (int i = 0; i < sessions; i++) {
+			running[i] = new AtomicInteger();
+			order[i] = Collections.synchronizedList(new ArrayList<>());
+		}
+		AtomicInteger overlap = new AtomicInteger();
+		AtomicInteger concurrentSessions = new AtomicInteger();
+		AtomicInteger maxConcurrentSessions = new AtomicInteger();
+
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for (int t = 0; t < turnsPerSession; t++) {
+			for (int s = 0; s < sessions; s++) {
+				int session = s;
+				int turn = t;
+				futures.add(turns.submit("s" + s, () -> {
+					if (running[session].incrementAndGet() > 1) overlap.incrementAndGet();
+					maxConcurrentSessions.accumulateAndGet(concurrentSessions.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					order[session].add(turn);
+					concurrentSessions.decrementAndGet();
+					running[session].decrementAndGet();
+					return turn;
+				}));
+			}
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+		assertEquals(0, overlap.get());
+		assertTrue(maxConcurrentSessions.get() > 1, "不同会话应并行执行");
+		for (List<Integer> o : order) assertEquals(turnsPerSession, o.size());
+		for (int i = 0; i < turnsPerSession; i++) assertEquals(i, order[0].get(i));
+		// 最后一轮的结果先于邮箱关闭返回，稍等邮箱回收
+		for (int i = 0; i < 100 && turns.busySessions() > 0; i++) Thread.sleep(10);
+		assertEquals(0, turns.busySessions());
+		pool.shutdown();
+	}
+
+	@Test
+	void rejectsWhenSessionQueueIsFull() throws Exception {
+		ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+		SessionTurnExecutor turns = new SessionTurnExecutor(pool, 2, new SimpleMeterRegistry());
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> first = turns.submit("s", () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			return "first";
+		});
+		CompletableFuture<String> second = turns.submit("s", () -> "second");
+		assertThrows(TurnRejectedException.class, () -> turns.submit("s", () -> "third"));
+		// 其他会话不受影响
+		assertEquals("other", turns.call("other", () -> "other"));
+
+		release.countDown();
+		assertEquals("first", first.get(5, TimeUnit.SECONDS));
+		assertEquals("second", second.get(5, TimeUnit.SECONDS));
+		assertEquals("again", turns.call("s", () -> "again"));
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.interviewer_controller.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageMetricsTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final StageMetrics metrics = new StageMetrics(registry);
+
+	private Timer timer(String stage) {
+		return registry.find("interview.stage").tag("stage", stage).timer();
+	}
+
+	@Test
+	void timesEachStageUnderItsOwnTag() {
+		assertEquals("答案", metrics.time(StageMetrics.ENTITY, () -> "答案"));
+		metrics.time(StageMetrics.ENTITY, () -> null);
+		metrics.record(StageMetrics.TTS, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50));
+
+		assertEquals(2, timer(StageMetrics.ENTITY).count());
+		assertEquals(1, timer(StageMetrics.TTS).count());
+		assertTrue(timer(StageMetrics.TTS).totalTime(TimeUnit.MILLISECONDS) >= 50);
+		assertNull(timer(StageMetrics.GRAPH));
+	}
+
+	@Test
+	void failedCallsAreStillTimed() {
+		assertThrows(IllegalStateException.class, () -> metrics.time(StageMetrics.VECTOR_SEARCH, () -> {
+			throw new IllegalStateException("向量库不可用");
+		}));
+		assertEquals(1, timer(StageMetrics.VECTOR_SEARCH).count());
+	}
+}
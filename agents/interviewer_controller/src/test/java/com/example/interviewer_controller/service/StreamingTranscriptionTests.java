@@ -0,0 +1,67 @@
+package com.example.interviewer_controller.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTranscriptionTests {
+
+	private static final int RATE = 16000;
+
+	private final ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+
+	@AfterEach
+	void shutdown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * 本地桩引擎：按音频时长返回"<毫秒>ms"，不依赖真实的 Whisper 服务
+	 */
+	private final AtomicInteger calls = new AtomicInteger();
+	private final SttEngine stub = (audio, filename) -> {
+		calls.incrementAndGet();
+		return ((audio.length - 44) / 2 * 1000 / RATE) + "ms";
+	};
+
+	@Test
+	void windowsAreTranscribedWhileRecordingAndJoinedInOrder() throws Exception {
+		List<String> partials = new CopyOnWriteArrayList<>();
+		StreamingTranscription transcription = new StreamingTranscription(stub, pool, RATE, 1000, partials::add);
+
+		// 静音也能切：在最后四分之一里取能量最低（相同时取最早）的帧
+		byte[] chunk = new byte[RATE / 10 * 2];   // 100ms
+		for (int i = 0; i < 25; i++) transcription.append(chunk);
+		for (int i = 0; i < 100 && partials.size() < 2; i++) Thread.sleep(10);
+		assertEquals(2, calls.get(), "录音过程中两个完整窗口已送去识别");
+		assertFalse(partials.isEmpty());
+
+		String text = transcription.finish().get(5, TimeUnit.SECONDS);
+		assertEquals(3, calls.get());
+		assertEquals(2500, transcription.receivedMs());
+		int total = 0;
+		for (String part : text.split("ms")) total += Integer.parseInt(part.trim());
+		assertEquals(2500, total, 1);
+		assertThrows(IllegalStateException.class, () -> transcription.append(chunk));
+	}
+
+	@Test
+	void failedWindowIsSkipped() throws Exception {
+		AtomicInteger seq = new AtomicInteger();
+		SttEngine flaky = (audio, filename) -> {
+			if (seq.getAndIncrement() == 0) throw new IllegalStateException("boom");
+			return "后半段";
+		};
+		StreamingTranscription transcription = new StreamingTranscription(flaky, pool, RATE, 1000, text -> {});
+		transcription.append(new byte[RATE * 2 * 3 / 2]);   // 1.5s
+		assertEquals("后半段", transcription.finish().get(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.interviewer_controller.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtsAudioCacheTests {
+
+	@TempDir
+	Path dir;
+
+	private final AtomicInteger synthesized = new AtomicInteger();
+
+	private byte[] synth(String text) {
+		synthesized.incrementAndGet();
+		return ("audio:" + text).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void memoryThenDiskThenSynthesize() {
+		TtsAudioCache cache = new TtsAudioCache("v", "mp3", 1024, 1 << 20, dir);
+		assertArrayEquals(synth("你好"), cache.get("你好", () -> synth("你好")));
+		synthesized.set(0);
+
+		cache.get("你好", () -> synth("你好"));
+		assertEquals(0, synthesized.get(), "内存层命中");
+
+		// 重启后内存层为空，从磁盘层读出
+		TtsAudioCache restarted = new TtsAudioCache("v", "mp3", 1024, 1 << 20, dir);
+		assertTrue(restarted.contains("你好"));
+		assertArrayEquals(synth("你好"), restarted.get("你好", () -> { throw new AssertionError("不应合成"); }));
+		assertEquals(1L, restarted.getStats().get("diskHits"));
+
+		// 换音色后键不同
+		TtsAudioCache otherVoice = new TtsAudioCache("v2", "mp3", 1024, 1 << 20, dir);
+		assertFalse(otherVoice.contains("你好"));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedByBytes() {
+		TtsAudioCache cache = new TtsAudioCache("v", "mp3", 40, 40, dir);
+		cache.get("a", () -> new byte[15]);
+		cache.get("b", () -> new byte[15]);
+		cache.get("a", () -> new byte[15]);      // a 变为最近使用
+		cache.get("c", () -> new byte[15]);      // 超过 40 字节，淘汰 b
+
+		assertTrue(cache.contains("a"));
+		assertFalse(cache.contains("b"));
+		assertTrue(cache.contains("c"));
+		assertTrue(cache.memoryBytes() <= 40);
+		assertTrue(cache.diskBytes() <= 40);
+	}
+
+	@Test
+	void failedSynthesisIsNotCached() {
+		TtsAudioCache cache = new TtsAudioCache("v", "mp3", 1024, 1024, null);
+		cache.get("x", () -> new byte[0]);
+		assertFalse(cache.contains("x"));
+		assertEquals(0.0, cache.getStats().get("hitRatio"));
+	}
+}